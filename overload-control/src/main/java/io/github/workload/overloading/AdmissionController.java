@@ -32,6 +32,36 @@ public interface AdmissionController {
      */
     void feedback(@NonNull Feedback feedback);
 
+    /**
+     * 被拒绝的工作负荷是否值得重试到其他节点.
+     *
+     * <p>集群都过载时重试只会恶化问题；只有存在会准入它的其他节点时才值得重试.</p>
+     *
+     * @param workload the rejected workload
+     * @return true if unknown about the cluster
+     */
+    default boolean retryable(@NonNull Workload workload) {
+        return true;
+    }
+
+    /**
+     * 集群里过载节点的比例，server可以在过载响应里携带给client.
+     *
+     * @return [0, 1]，0 if unknown about the cluster
+     * @see io.github.workload.overloading.handler.OverloadHandler#recordOverloaded(String, double)
+     */
+    default double overloadedRatio() {
+        return 0;
+    }
+
+    /**
+     * 释放准入控制器持有的资源，并移除名称粒度的单例.
+     *
+     * <p>感知集群的准入控制器会停止周期性的状态交换并退出集群；之后以相同名称{@code getInstance}得到新的实例.</p>
+     */
+    default void close() {
+    }
+
     /**
      * 获取指定类型的准入控制器实例，名称粒度的单例.
      *
@@ -52,6 +82,18 @@ public interface AdmissionController {
                 () -> new FairSafeAdmissionController(name, metricsTrackerFactory));
     }
 
+    /**
+     * 获取指定类型的、感知集群准入状态的准入控制器实例，名称粒度的单例.
+     *
+     * @param name                  name(or type) of the admission control
+     * @param metricsTrackerFactory factory that creates metrics tracker
+     * @param exchange              transport that exchanges admission state with peers
+     */
+    static AdmissionController getInstance(@NonNull String name, IMetricsTrackerFactory metricsTrackerFactory, @NonNull WatermarkExchange exchange) {
+        return AdmissionControllerFactory.getInstance(name,
+                () -> new FairSafeAdmissionController(name, metricsTrackerFactory, exchange));
+    }
+
     interface Feedback {
         /**
          * 直接进入过载状态：显式过载反馈.
@@ -27,8 +27,16 @@ class AdmissionControllerFactory {
         });
     }
 
+    static void remove(@NonNull String name, @NonNull AdmissionController instance) {
+        if (instances.remove(name, instance)) {
+            log.info("unregister for:{}", name);
+        }
+    }
+
     @VisibleForTesting("清除共享的静态变量，以便隔离单元测试")
     static synchronized void resetForTesting() {
+        // 关闭实例持有的周期任务等资源，避免泄漏到其他单元测试
+        instances.values().forEach(AdmissionController::close);
         instances.clear();
     }
 
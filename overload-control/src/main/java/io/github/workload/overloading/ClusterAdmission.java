@@ -0,0 +1,163 @@
+package io.github.workload.overloading;
+
+import io.github.workload.HyperParameter;
+import io.github.workload.NamedThreadFactory;
+import io.github.workload.WorkloadPriority;
+import io.github.workload.annotations.ThreadSafe;
+import io.github.workload.annotations.VisibleForTesting;
+import io.github.workload.overloading.WatermarkExchange.NodeState;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 基于{@link WatermarkExchange}汇总的集群准入视图.
+ *
+ * <p>周期性地发布本节点状态并汇总其他节点状态，准入路径上只读取汇总后的不可变视图.</p>
+ * <ul>对准入决策的影响:
+ * <li>集群多数节点过载时，按集群水位线(各节点水位线的中位数)与本地水位线中更严格者准入，使得shed在集群范围内一致，避免低优先级请求被重试到最宽松的节点</li>
+ * <li>被拒绝的请求，只有存在会准入它的其他节点时才值得重试</li>
+ * </ul>
+ */
+@Slf4j
+@ThreadSafe
+class ClusterAdmission {
+    static final long EXCHANGE_INTERVAL_MS = HyperParameter.getLong(Empirical.EXCHANGE_INTERVAL_MS, 1000);
+    static final double CLUSTER_OVERLOADED_RATIO = HyperParameter.getDouble(Empirical.CLUSTER_OVERLOADED_RATIO, 0.5d);
+
+    // 超过3个交换周期没有更新的节点状态被忽略
+    static final long PEER_TTL_MS = 3 * EXCHANGE_INTERVAL_MS;
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(ClusterAdmission.class.getSimpleName()));
+
+    private final WatermarkExchange exchange;
+    private final Function<String /* nodeId */, NodeState> localState;
+    private final ScheduledFuture<?> task;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private volatile View view = new View(WorkloadPriority.ofLowest().P(), 0, Collections.emptyList());
+
+    ClusterAdmission(@NonNull WatermarkExchange exchange, @NonNull Function<String, NodeState> localState) {
+        this.exchange = exchange;
+        this.localState = localState;
+        this.task = timer.scheduleAtFixedRate(this::safeExchange, EXCHANGE_INTERVAL_MS, EXCHANGE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        log.info("[{}] created with exchange:{}, interval:{}ms", exchange.nodeId(), exchange.getClass().getSimpleName(), EXCHANGE_INTERVAL_MS);
+    }
+
+    /**
+     * 集群多数节点过载时，要求工作负荷满足集群水位线.
+     */
+    boolean admit(WorkloadPriority priority) {
+        final View current = view;
+        if (current.overloadedRatio < CLUSTER_OVERLOADED_RATIO) {
+            return true;
+        }
+
+        return priority.P() <= current.watermark;
+    }
+
+    /**
+     * 被本节点拒绝的工作负荷是否值得重试到其他节点.
+     */
+    boolean retryable(WorkloadPriority priority) {
+        final List<NodeState> peers = view.peers;
+        if (peers.isEmpty()) {
+            // 不了解集群状态
+            return true;
+        }
+
+        for (NodeState peer : peers) {
+            if (peer.admits(priority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 集群里过载节点的比例：[0, 1].
+     */
+    double overloadedRatio() {
+        return view.overloadedRatio;
+    }
+
+    /**
+     * 集群水位线：各节点水位线的中位数.
+     */
+    int watermark() {
+        return view.watermark;
+    }
+
+    /**
+     * 停止周期性的状态交换并退出集群，可重复调用.
+     */
+    void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        task.cancel(false);
+        exchange.close();
+    }
+
+    // ScheduledExecutorService的实现通常不会对抛异常的任务进行重新调度
+    private void safeExchange() {
+        try {
+            exchange(System.currentTimeMillis());
+        } catch (Exception why) {
+            log.error("watermark exchange failed", why);
+        }
+    }
+
+    @VisibleForTesting
+    void exchange(long nowMs) {
+        final NodeState local = localState.apply(exchange.nodeId());
+        exchange.publish(local);
+
+        final List<NodeState> peers = new ArrayList<>();
+        for (NodeState peer : exchange.peers()) {
+            if (nowMs - peer.getTimestampMs() <= PEER_TTL_MS) {
+                peers.add(peer);
+            }
+        }
+
+        final int[] watermarks = new int[peers.size() + 1];
+        int overloaded = local.isOverloaded() ? 1 : 0;
+        watermarks[0] = local.getWatermark();
+        for (int i = 0; i < peers.size(); i++) {
+            watermarks[i + 1] = peers.get(i).getWatermark();
+            if (peers.get(i).isOverloaded()) {
+                overloaded++;
+            }
+        }
+        Arrays.sort(watermarks);
+
+        final View next = new View(watermarks[watermarks.length / 2], (double) overloaded / watermarks.length, Collections.unmodifiableList(peers));
+        if (next.overloadedRatio != view.overloadedRatio) {
+            log.info("[{}] cluster overloaded ratio:{} -> {}, watermark:{}, peers:{}", local.getNodeId(), view.overloadedRatio, next.overloadedRatio, next.watermark, peers.size());
+        }
+        view = next;
+    }
+
+    private static class View {
+        private final int watermark;
+        private final double overloadedRatio;
+        private final List<NodeState> peers;
+
+        View(int watermark, double overloadedRatio, List<NodeState> peers) {
+            this.watermark = watermark;
+            this.overloadedRatio = overloadedRatio;
+            this.peers = peers;
+        }
+    }
+}
@@ -49,6 +49,15 @@ interface Empirical extends HyperParameter {
      */
     String SHED_RECOVER_RATE = "workload.SHED_RECOVER_RATE";
 
+    /**
+     * 空闲时窗口时间周期的放大速率.
+     *
+     * <p>过载时时间周期按梯度缩小，空闲时按 1 + (梯度 - 1) * 该速率 放大，即(加速收缩，慢速恢复)</p>
+     *
+     * <p>默认值：0.2</p>
+     */
+    String TIME_CYCLE_GROW_RATE = "workload.TIME_CYCLE_GROW_RATE";
+
     /**
      * 降速时允许的过度丢弃最大误差率.
      *
@@ -60,6 +69,37 @@ interface Empirical extends HyperParameter {
      */
     String OVER_SHED_BOUND = "workload.OVER_SHED_BOUND";
 
+    /**
+     * 是否由独立的控制线程异步预测水位线.
+     *
+     * <p>开启后，触发窗口切换的请求线程只负责切换窗口，不再同步执行水位线预测(遍历直方图，打日志，PID)，从而不增加请求的尾延迟.</p>
+     * <p>水位线最多滞后一个窗口时间周期，控制线程卡顿时退化为请求线程同步预测.</p>
+     *
+     * <p>默认值：false</p>
+     */
+    String ASYNC_ROLLOVER = "workload.ASYNC_ROLLOVER";
+
+    /**
+     * 同一节点上多个JVM共享CPU水位线的内存映射文件路径，例如：/dev/shm/workload-cpu.
+     *
+     * <p>默认不配置：CPU水位线是JVM范围的</p>
+     */
+    String SHM_WATERMARK_PATH = "workload.SHM_WATERMARK_PATH";
+
+    /**
+     * 集群节点之间交换准入状态的周期 in ms.
+     *
+     * <p>默认值：1000</p>
+     */
+    String EXCHANGE_INTERVAL_MS = "workload.EXCHANGE_INTERVAL_MS";
+
+    /**
+     * 集群过载节点比例达到该值时，按集群水位线准入.
+     *
+     * <p>默认值：0.5，即多数节点过载</p>
+     */
+    String CLUSTER_OVERLOADED_RATIO = "workload.CLUSTER_OVERLOADED_RATIO";
+
     /**
      * 梯度的最大值：系统非常空闲.
      */
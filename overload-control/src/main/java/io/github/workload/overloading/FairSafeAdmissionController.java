@@ -57,13 +57,23 @@ class FairSafeAdmissionController implements AdmissionController {
     private final FairShedderQueue fairQueue;
     private final IMetricsTracker metricsTracker;
 
+    // 集群准入视图，null表示只根据本地信息决策
+    private final ClusterAdmission cluster;
+
     FairSafeAdmissionController(String name) {
         this(name, null);
     }
 
     FairSafeAdmissionController(String name, IMetricsTrackerFactory metricsTrackerFactory) {
+        this(name, metricsTrackerFactory, null);
+    }
+
+    FairSafeAdmissionController(String name, IMetricsTrackerFactory metricsTrackerFactory, WatermarkExchange exchange) {
         this.fairQueue = new FairShedderQueue(name);
+        this.cluster = exchange != null ? new ClusterAdmission(exchange, this::localState) : null;
         this.metricsTracker = metricsTrackerFactory != null ? metricsTrackerFactory.create(name) : new NopMetricsTracker();
+        this.metricsTracker.trackWindow("cpu", fairCpu.windowConfig());
+        this.metricsTracker.trackWindow("queue", fairQueue.windowConfig());
     }
 
     @Override
@@ -78,6 +88,13 @@ class FairSafeAdmissionController implements AdmissionController {
             return false;
         }
 
+        // 集群多数节点过载时，与其他节点保持一致的shed
+        if (cluster != null && !cluster.admit(priority)) {
+            log.info("[{}] busy cluster shed workload:{}, cluster watermark:{}", fairQueue.name, priority.simpleString(), cluster.watermark());
+            metricsTracker.shedByCluster(priority);
+            return false;
+        }
+
         // 基于单独队列的准入机制
         boolean ok = fairQueue.admit(priority);
         if (!ok) {
@@ -99,6 +116,39 @@ class FairSafeAdmissionController implements AdmissionController {
         }
     }
 
+    @Override
+    public boolean retryable(@NonNull Workload workload) {
+        return cluster == null || cluster.retryable(workload.getPriority());
+    }
+
+    @Override
+    public double overloadedRatio() {
+        return cluster == null ? 0 : cluster.overloadedRatio();
+    }
+
+    /**
+     * 停止集群状态交换并退出集群，移除名称粒度的单例.
+     */
+    @Override
+    public void close() {
+        if (cluster != null) {
+            cluster.close();
+        }
+        AdmissionControllerFactory.remove(fairQueue.name, this);
+    }
+
+    // 本节点的准入状态：取(CPU，队列)中更严格者
+    private WatermarkExchange.NodeState localState(String nodeId) {
+        final int watermark = Math.min(fairCpu.admissionWatermark().P(), fairQueue.watermark().P());
+        final double gradient = Math.min(fairCpu.gradient(), fairQueue.gradient());
+        return new WatermarkExchange.NodeState(nodeId, watermark, gradient, fairQueue.shedRatio(), System.currentTimeMillis());
+    }
+
+    @VisibleForTesting
+    ClusterAdmission cluster() {
+        return cluster;
+    }
+
     @VisibleForTesting
     FairShedderQueue fairQueue() {
         return fairQueue;
@@ -1,6 +1,7 @@
 package io.github.workload.overloading;
 
 import io.github.workload.HyperParameter;
+import io.github.workload.NamedThreadFactory;
 import io.github.workload.WorkloadPriority;
 import io.github.workload.annotations.ThreadSafe;
 import io.github.workload.annotations.VisibleForTesting;
@@ -14,6 +15,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -38,6 +41,11 @@ abstract class FairShedder {
     static final double OVER_SHED_BOUND = HyperParameter.getDouble(Empirical.OVER_SHED_BOUND, 1.01d);
     static final double DROP_RATE_BASE = HyperParameter.getDouble(Empirical.SHED_DROP_RATE, 0.05d);
     static final double RECOVER_RATE_BASE = HyperParameter.getDouble(Empirical.SHED_RECOVER_RATE, 0.03d);
+    static final double TIME_CYCLE_GROW_RATE = HyperParameter.getDouble(Empirical.TIME_CYCLE_GROW_RATE, 0.2d);
+
+    // 所有shedder共享的水位线预测控制线程
+    private static final Executor controlLoop = HyperParameter.getBoolean(Empirical.ASYNC_ROLLOVER, false) ?
+            Executors.newSingleThreadExecutor(new NamedThreadFactory("FairShedder")) : null;
 
     protected final String name;
     private final TumblingWindow<CountAndTimeWindowState> window;
@@ -50,6 +58,10 @@ abstract class FairShedder {
     private final PIDController pidController;
     private final AtomicInteger lastTargetCount = new AtomicInteger(PID_TARGET_IGNORED);
 
+    // 最近一次预测水位线时的状态
+    private volatile double lastGradient = GRADIENT_HEALTHY;
+    private volatile double lastShedRatio = 0;
+
     /**
      * 计算过载梯度值：[{@link #GRADIENT_BUSIEST}, {@link #GRADIENT_IDLEST}].
      *
@@ -75,7 +87,7 @@ abstract class FairShedder {
                     }
                 }
         );
-        this.window = new TumblingWindow<>(config, name, System.nanoTime());
+        this.window = new TumblingWindow<>(config, name, System.nanoTime(), controlLoop);
         this.pidController = new PIDController(0.1, 0.01, 0.05);
         this.stochastic = shedStochastic;
     }
@@ -93,8 +105,31 @@ abstract class FairShedder {
         return watermark.get();
     }
 
+    /**
+     * 最近一次预测水位线时的过载梯度.
+     */
+    double gradient() {
+        return lastGradient;
+    }
+
+    /**
+     * 最近一次预测水位线时上个窗口的请求削减率.
+     */
+    double shedRatio() {
+        return lastShedRatio;
+    }
+
+    /**
+     * 实际生效的准入水位线，子类可以结合外部信号收紧.
+     */
+    protected WorkloadPriority admissionWatermark() {
+        return watermark();
+    }
+
     void predictWatermark(CountAndTimeWindowState lastWindow, double gradient, long nowNs) {
         final double shedRatio = lastWindow.shedRatio();
+        lastGradient = gradient;
+        lastShedRatio = shedRatio;
         history.addHistory(shedRatio, watermark());
         if (log.isTraceEnabled()) {
             log.trace("[{}] predict with lastWindow workload admitted({}/{}), grad:{}, shedRatio:{}", name, lastWindow.admitted(), lastWindow.requested(), gradient, shedRatio);
@@ -110,7 +145,22 @@ abstract class FairShedder {
         pidControlWatermark(lastWindow, nowNs, overloaded);
 
         // 根据系统的负载情况动态调整窗口的大小
-        window.zoomTimeCycle(1);
+        window.zoomTimeCycle(timeCycleZoomFactor(gradient));
+        window.adaptRequestCycle(lastWindow.qps(nowNs));
+    }
+
+    /**
+     * 时间周期的缩放因子.
+     *
+     * <p>过载时按梯度缩小时间周期以加快响应；空闲时缓慢放大以降低噪声、减少窗口切换：加速收缩，慢速恢复.</p>
+     */
+    @VisibleForTesting
+    double timeCycleZoomFactor(double gradient) {
+        if (isOverloaded(gradient)) {
+            return gradient;
+        }
+
+        return 1 + (gradient - GRADIENT_HEALTHY) * TIME_CYCLE_GROW_RATE;
     }
 
     // 类ReLU的激活函数
@@ -248,7 +298,7 @@ abstract class FairShedder {
 
     private boolean satisfyWatermark(WorkloadPriority priority) {
         // 在水位线(含)以下的请求都放行
-        return priority.P() <= watermark().P();
+        return priority.P() <= admissionWatermark().P();
     }
 
     private void ignorePIDControl() {
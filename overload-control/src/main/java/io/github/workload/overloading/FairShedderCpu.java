@@ -2,6 +2,7 @@ package io.github.workload.overloading;
 
 import io.github.workload.HyperParameter;
 import io.github.workload.Sysload;
+import io.github.workload.WorkloadPriority;
 import io.github.workload.annotations.VisibleForTesting;
 import io.github.workload.metrics.smoother.ValueSmoother;
 import io.github.workload.metrics.tumbling.CountAndTimeWindowState;
@@ -21,6 +22,10 @@ class FairShedderCpu extends FairShedder {
 
     private final double cpuUsageUpperBound;
     private Sysload sysload;
+    private volatile double smoothedCpuUsage;
+
+    // 同一节点上多个JVM共享的CPU水位线，null表示JVM范围
+    private final SharedWatermark sharedWatermark;
 
     @VisibleForTesting
     final ValueSmoother valueSmoother;
@@ -34,11 +39,16 @@ class FairShedderCpu extends FairShedder {
     }
 
     FairShedderCpu(double cpuUsageUpperBound, @NonNull Sysload sysload) {
+        this(cpuUsageUpperBound, sysload, SharedWatermark.fromProperty());
+    }
+
+    FairShedderCpu(double cpuUsageUpperBound, @NonNull Sysload sysload, SharedWatermark sharedWatermark) {
         super("CPU");
         this.cpuUsageUpperBound = cpuUsageUpperBound;
         this.sysload = sysload;
         this.valueSmoother = ValueSmoother.ofEMA(CPU_EMA_ALPHA);
-        log.info("[{}] created with sysload:{}, upper bound:{}, ema alpha:{}", this.name, sysload.getClass().getSimpleName(), cpuUsageUpperBound, CPU_EMA_ALPHA);
+        this.sharedWatermark = sharedWatermark;
+        log.info("[{}] created with sysload:{}, upper bound:{}, ema alpha:{}, node scope:{}", this.name, sysload.getClass().getSimpleName(), cpuUsageUpperBound, CPU_EMA_ALPHA, sharedWatermark != null);
     }
 
     @Override
@@ -51,6 +61,7 @@ class FairShedderCpu extends FairShedder {
             raw = 1.0d;
         }
         final double smoothed = valueSmoother.update(raw).smoothedValue();
+        smoothedCpuUsage = smoothed;
         final double gradient = gradient(smoothed, cpuUsageUpperBound);
         if (isOverloaded(gradient)) {
             log.warn("smoothed CPU BUSY:{} > {}, raw:{}, grad:{}", smoothed, cpuUsageUpperBound, raw, gradient);
@@ -58,6 +69,28 @@ class FairShedderCpu extends FairShedder {
         return gradient;
     }
 
+    @Override
+    void predictWatermark(CountAndTimeWindowState lastWindow, double gradient, long nowNs) {
+        super.predictWatermark(lastWindow, gradient, nowNs);
+        if (sharedWatermark != null) {
+            sharedWatermark.publish(watermark(), smoothedCpuUsage);
+        }
+    }
+
+    /**
+     * 本地水位线与节点范围水位线中更严格者：co-located JVM 竞争同一份CPU配额.
+     */
+    @Override
+    protected WorkloadPriority admissionWatermark() {
+        final WorkloadPriority local = watermark();
+        if (sharedWatermark == null) {
+            return local;
+        }
+
+        final WorkloadPriority node = sharedWatermark.nodeWatermark();
+        return node.P() < local.P() ? node : local;
+    }
+
     @VisibleForTesting
     double gradient(double cpuUsage, double upperBound) {
         double rawGradient = upperBound / cpuUsage;
@@ -0,0 +1,58 @@
+package io.github.workload.overloading;
+
+import io.github.workload.annotations.VisibleForTesting;
+import lombok.Generated;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内的{@link WatermarkExchange}实现：同一个group的多个实例模拟集群的多个节点，无需网络即可在本地测试集群准入.
+ */
+public class LoopbackWatermarkExchange implements WatermarkExchange {
+    private static final Map<String /* group */, Map<String /* nodeId */, NodeState>> groups = new ConcurrentHashMap<>();
+
+    private final String nodeId;
+    private final Map<String, NodeState> members;
+
+    public LoopbackWatermarkExchange(@NonNull String group, @NonNull String nodeId) {
+        this.nodeId = nodeId;
+        this.members = groups.computeIfAbsent(group, key -> new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(@NonNull NodeState local) {
+        members.put(nodeId, local);
+    }
+
+    @Override
+    public Collection<NodeState> peers() {
+        List<NodeState> peers = new ArrayList<>(members.size());
+        members.forEach((id, state) -> {
+            if (!id.equals(nodeId)) {
+                peers.add(state);
+            }
+        });
+        return peers;
+    }
+
+    @Override
+    public void close() {
+        members.remove(nodeId);
+    }
+
+    @VisibleForTesting
+    @Generated
+    static void resetForTesting() {
+        groups.clear();
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.workload.overloading;
+
+import io.github.workload.WorkloadPriority;
+import io.github.workload.annotations.ThreadSafe;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 同一节点上多个JVM进程之间，基于共享内存(memory-mapped file)发布各自的CPU水位线和负载.
+ *
+ * <p>一个pod里运行多个JVM时，它们竞争同一份CPU配额，但{@link FairShedderCpu}是JVM范围的：各自独立地shed，可能出现一个进程放行低优先级请求而另一个进程在丢弃高优先级请求.</p>
+ * <p>每个进程占用一个slot，在每次预测水位线后发布(水位线，CPU使用率，心跳)，同时汇总存活进程的水位线得到节点范围的水位线：取本进程与CPU饱和的peer里最严格者.</p>
+ * <p>CPU未饱和的peer被忽略：它的水位线可能仍停留在冷却期内，或由非CPU因素收紧，不代表共享的CPU配额已经耗尽.</p>
+ * <p>无网络开销：发布/汇总在窗口切换时进行，准入路径上只读取缓存的节点水位线.</p>
+ *
+ * <ul>slot layout(32 bytes):
+ * <li>[0, 8): owner token，0表示空闲</li>
+ * <li>[8, 16): heartbeat, {@link System#currentTimeMillis()}</li>
+ * <li>[16, 24): state，高32位为{@link WorkloadPriority#P()}，低32位为float表示的CPU使用率，单次写入保证不会读到撕裂的状态</li>
+ * <li>[24, 32): owner pid，便于排查</li>
+ * </ul>
+ * <p>长期空闲(没有窗口切换因而没有心跳)的进程，其slot可能被其他进程回收，再次发布时会重新占用slot.</p>
+ */
+@Slf4j
+@ThreadSafe
+class SharedWatermark implements AutoCloseable {
+    static final int SLOTS = 64;
+    static final long PEER_TTL_MS = 3000;
+
+    private static final int SLOT_BYTES = 32;
+    private static final int OFFSET_OWNER = 0;
+    private static final int OFFSET_HEARTBEAT = 8;
+    private static final int OFFSET_STATE = 16;
+    private static final int OFFSET_PID = 24;
+    private static final long NO_OWNER = 0;
+
+    // 同一JVM内的多个实例在同一文件上并发加锁会抛出 OverlappingFileLockException：文件锁是进程范围的，JVM内需要额外串行化
+    private static final Object CLAIM_LOCK = new Object();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer region;
+    private final long pid;
+    private final long owner;
+    private final double saturatedCpuUsage;
+    private int slot;
+
+    // 节点范围的水位线，每次发布时刷新
+    private final AtomicReference<WorkloadPriority> nodeWatermark = new AtomicReference<>(WorkloadPriority.ofLowest());
+
+    SharedWatermark(Path path) throws IOException {
+        this(path, FairShedderCpu.CPU_USAGE_UPPER_BOUND);
+    }
+
+    /**
+     * @param saturatedCpuUsage peer发布的CPU使用率不低于该值时才参与节点水位线的汇总
+     */
+    SharedWatermark(Path path, double saturatedCpuUsage) throws IOException {
+        this.path = path;
+        this.saturatedCpuUsage = saturatedCpuUsage;
+        this.pid = currentPid();
+        this.owner = ThreadLocalRandom.current().nextLong() | 1L; // nonzero
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.region = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) SLOTS * SLOT_BYTES);
+        this.slot = claimSlot();
+        log.info("created with path:{}, pid:{}, slot:{}", path, pid, slot);
+    }
+
+    /**
+     * 根据{@link Empirical#SHM_WATERMARK_PATH}创建，未配置或创建失败则返回null：退化为JVM范围.
+     */
+    static SharedWatermark fromProperty() {
+        final String path = System.getProperty(Empirical.SHM_WATERMARK_PATH);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return new SharedWatermark(Paths.get(path));
+        } catch (Exception why) {
+            log.error("fallback to JVM scope watermark, path:{}", path, why);
+            return null;
+        }
+    }
+
+    /**
+     * 发布本进程的水位线和CPU使用率，并汇总得到节点范围的水位线.
+     */
+    synchronized void publish(WorkloadPriority watermark, double cpuUsage) {
+        if (region.getLong(slot * SLOT_BYTES + OFFSET_OWNER) != owner) {
+            try {
+                final int reclaimed = claimSlot();
+                log.warn("slot {} was reclaimed by peer, now slot:{}", slot, reclaimed);
+                slot = reclaimed;
+            } catch (IOException why) {
+                log.error("cannot reclaim slot, skip publish", why);
+                return;
+            }
+        }
+
+        final int base = slot * SLOT_BYTES;
+        final long nowMs = System.currentTimeMillis();
+        region.putLong(base + OFFSET_STATE, ((long) watermark.P() << 32) | (Float.floatToIntBits((float) cpuUsage) & 0xFFFFFFFFL));
+        region.putLong(base + OFFSET_HEARTBEAT, nowMs);
+
+        int strictestP = watermark.P();
+        int peers = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            final int offset = i * SLOT_BYTES;
+            if (i == slot || region.getLong(offset + OFFSET_OWNER) == NO_OWNER
+                    || nowMs - region.getLong(offset + OFFSET_HEARTBEAT) > PEER_TTL_MS) {
+                continue;
+            }
+
+            peers++;
+            final long state = region.getLong(offset + OFFSET_STATE);
+            if (Float.intBitsToFloat((int) state) >= saturatedCpuUsage) {
+                strictestP = Math.min(strictestP, (int) (state >>> 32));
+            }
+        }
+
+        final WorkloadPriority derived = WorkloadPriority.fromP(strictestP);
+        final WorkloadPriority prev = nodeWatermark.getAndSet(derived);
+        if (!prev.equals(derived)) {
+            log.info("node watermark {} -> {}, local:{}, peers:{}", prev.simpleString(), derived.simpleString(), watermark.simpleString(), peers);
+        }
+    }
+
+    /**
+     * 节点范围的水位线：本进程与CPU饱和的存活peer里最严格的水位线.
+     */
+    WorkloadPriority nodeWatermark() {
+        return nodeWatermark.get();
+    }
+
+    /**
+     * 释放本进程占用的slot.
+     */
+    @Override
+    public synchronized void close() {
+        if (region.getLong(slot * SLOT_BYTES + OFFSET_OWNER) == owner) {
+            region.putLong(slot * SLOT_BYTES + OFFSET_OWNER, NO_OWNER);
+        }
+        try {
+            channel.close();
+        } catch (IOException why) {
+            log.error("close {} failed", path, why);
+        }
+    }
+
+    // 借助跨进程的文件锁占用一个空闲或心跳过期的slot
+    private int claimSlot() throws IOException {
+        synchronized (CLAIM_LOCK) {
+            try (FileLock ignored = channel.lock()) {
+                final long nowMs = System.currentTimeMillis();
+                for (int i = 0; i < SLOTS; i++) {
+                    final int offset = i * SLOT_BYTES;
+                    if (region.getLong(offset + OFFSET_OWNER) == NO_OWNER
+                            || nowMs - region.getLong(offset + OFFSET_HEARTBEAT) > PEER_TTL_MS) {
+                        region.putLong(offset + OFFSET_STATE, (long) WorkloadPriority.ofLowest().P() << 32);
+                        region.putLong(offset + OFFSET_HEARTBEAT, nowMs);
+                        region.putLong(offset + OFFSET_PID, pid);
+                        region.putLong(offset + OFFSET_OWNER, owner);
+                        return i;
+                    }
+                }
+            }
+        }
+
+        throw new IOException("no free slot in " + path);
+    }
+
+    private static long currentPid() {
+        // Java 8 没有 ProcessHandle：name 形如 pid@hostname
+        final String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return Long.parseLong(name.substring(0, name.indexOf('@')));
+        } catch (Exception ignored) {
+            return name.hashCode() | 1L;
+        }
+    }
+}
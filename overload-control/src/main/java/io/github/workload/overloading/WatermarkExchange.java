@@ -0,0 +1,92 @@
+package io.github.workload.overloading;
+
+import io.github.workload.WorkloadPriority;
+import io.github.workload.annotations.ThreadSafe;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Collection;
+
+/**
+ * 集群节点之间交换准入状态的SPI，传输方式可插拔：gossip/注册中心/广播/etc.
+ *
+ * <p>每个节点只根据本地信息做准入决策，负载均衡后面的节点之间shed不一致：在一个节点被拒绝的请求，重试到另一个同样过载的节点只会恶化问题.</p>
+ * <p>通过周期性地交换紧凑的节点状态，{@link AdmissionController}可以据此使得shed在集群范围内更一致，并判断被拒绝的请求是否值得重试.</p>
+ *
+ * @see LoopbackWatermarkExchange
+ */
+@ThreadSafe
+public interface WatermarkExchange {
+
+    /**
+     * 本节点在集群内的唯一标识.
+     */
+    String nodeId();
+
+    /**
+     * 向其他节点发布本节点的最新状态.
+     *
+     * @param local 本节点状态
+     */
+    void publish(@NonNull NodeState local);
+
+    /**
+     * 已知的其他节点的最新状态，可能包含已过期的状态，由调用方根据{@link NodeState#getTimestampMs()}判断.
+     */
+    Collection<NodeState> peers();
+
+    /**
+     * 退出集群.
+     */
+    default void close() {
+    }
+
+    /**
+     * 节点的准入状态.
+     */
+    @Getter
+    class NodeState {
+        private final String nodeId;
+
+        /**
+         * 准入水位线，see {@link WorkloadPriority#P()}.
+         */
+        private final int watermark;
+
+        /**
+         * 过载梯度，小于1表示过载.
+         */
+        private final double gradient;
+
+        /**
+         * 最近窗口的请求削减率.
+         */
+        private final double shedRatio;
+
+        private final long timestampMs;
+
+        public NodeState(@NonNull String nodeId, int watermark, double gradient, double shedRatio, long timestampMs) {
+            this.nodeId = nodeId;
+            this.watermark = watermark;
+            this.gradient = gradient;
+            this.shedRatio = shedRatio;
+            this.timestampMs = timestampMs;
+        }
+
+        public boolean isOverloaded() {
+            return gradient < 1;
+        }
+
+        /**
+         * 该节点是否会准入指定优先级的工作负荷.
+         */
+        public boolean admits(@NonNull WorkloadPriority priority) {
+            return priority.P() <= watermark;
+        }
+
+        @Override
+        public String toString() {
+            return "NodeState(" + nodeId + ",P=" + watermark + ",grad=" + gradient + ",shed=" + shedRatio + ")";
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package io.github.workload.overloading.handler;
 
+import io.github.workload.SystemClock;
+import io.github.workload.metrics.sliding.Bucket;
+import io.github.workload.metrics.sliding.SlidingTimeWindow;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 基于重试预算的过载处理器.
@@ -14,71 +17,241 @@ import java.util.concurrent.atomic.AtomicLong;
  * <li>均匀，都过载：不能retry，那样会使问题恶化</li>
  * <li>不均，只有(该，少量)节点过载：可以有节制地retry</li>
  * </ul>
+ * <p>每个服务的请求/重试/过载响应计数在滑动窗口内统计，窗口由多个桶构成，过期的桶逐个滑出，不会出现整体重置导致的重试突刺.</p>
+ * <p>有效预算 = 预算 * (1 - 过载比例)，过载比例取server携带的集群过载节点比例与窗口内过载响应比例中的较大者：集群均匀过载时预算收缩到0.</p>
+ * <ul>独立统计的key数量可以设置上限，以控制高基数key(如租户)的内存占用，达到上限时：
+ * <li>先清理空闲的key：整个窗口时长内没有被访问，计数都已滑出窗口，按需重建的窗口与之等价；清理最多每秒一次</li>
+ * <li>仍然没有空间时，新key不被统计：预算是比例(重试/请求)，若与其他key共享窗口，一个key的重试会花掉其他key的请求挣来的预算；
+ * 单独使用时不允许其重试，在{@link HierarchicalRetryHandler}里则由上一层的预算把关，见{@link #isUntracked(String)}</li>
+ * </ul>
  *
  * @see <a href="https://sre.google/sre-book/handling-overload/#handling-overload-errors-AVsjHJ">Google SRE: Handling Overload Errors</a>
  */
 @Slf4j
 class BudgetedRetryHandler implements OverloadHandler {
-    private final long windowTtlMs;
+    static final int BUCKETS = 10;
+    private static final long SWEEP_INTERVAL_MS = 1000;
+
+    // 计数只发生在桶粒度，不需要实时时钟
+    private static final SystemClock clock = SystemClock.ofPrecisionMs(SystemClock.PRECISION_DRIFT_MS, BudgetedRetryHandler.class.getSimpleName());
+
+    private final int windowTtlMs;
+
+    private final int maxKeys;
 
-    private final Map<String /* service */, AtomicInteger> totalRequests = new ConcurrentHashMap<>();
-    private final Map<String /* service */, AtomicInteger> totalRetries = new ConcurrentHashMap<>();
-    private final Map<String /* service */, AtomicLong> lastResetMsMap = new ConcurrentHashMap<>();
+    private final Map<String /* service */, RetryWindow> windows = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepMs = new AtomicLong(clock.currentTimeMillis());
 
     public BudgetedRetryHandler(int windowTtlInSeconds) {
+        this(windowTtlInSeconds, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param windowTtlInSeconds 滑动窗口时长
+     * @param maxKeys            最多为多少个key独立统计
+     */
+    BudgetedRetryHandler(int windowTtlInSeconds, int maxKeys) {
         if (windowTtlInSeconds <= 0) {
             windowTtlInSeconds = 5 * 60; // 5m
         }
-        this.windowTtlMs = 1000L * windowTtlInSeconds;
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys must be positive");
+        }
+        this.windowTtlMs = 1000 * windowTtlInSeconds;
+        this.maxKeys = maxKeys;
     }
 
     @Override
     public void recordRequest(String service) {
-        counterOf(service, totalRequests).incrementAndGet();
+        RetryWindow window = windowOf(service);
+        if (window != null) {
+            window.current().requests.increment();
+        }
+    }
+
+    @Override
+    public void recordOverloaded(String service) {
+        RetryWindow window = windowOf(service);
+        if (window != null) {
+            window.current().overloads.increment();
+        }
+    }
+
+    @Override
+    public void recordOverloaded(String service, double overloadedRatio) {
+        RetryWindow window = windowOf(service);
+        if (window != null) {
+            window.current().overloads.increment();
+            window.signal(overloadedRatio, clock.currentTimeMillis());
+        }
     }
 
     @Override
     public boolean canRetry(String service, double budget) {
-        resetWindowIfNec(service);
+        if (!hasBudget(service, budget)) {
+            return false;
+        }
+
+        // 消耗一份预算
+        consume(service);
+        return true;
+    }
+
+    /**
+     * 窗口内是否还有重试预算，不消耗预算.
+     *
+     * <p>只读：没有统计的key不会因此分配窗口.</p>
+     */
+    boolean hasBudget(String service, double budget) {
+        final RetryWindow window = windows.get(service);
+        if (window == null) {
+            // 没有记录过请求，或超出key上限没有独立的统计
+            return false;
+        }
 
-        int total = counterOf(service, totalRequests).get();
-        if (total == 0) {
+        final long nowMs = clock.currentTimeMillis();
+        window.touch(nowMs);
+        long requests = 0;
+        long retries = 0;
+        long overloads = 0;
+        for (Counter counter : window.values(nowMs)) {
+            requests += counter.requests.sum();
+            retries += counter.retries.sum();
+            overloads += counter.overloads.sum();
+        }
+        if (requests == 0) {
             return false;
         }
 
-        AtomicInteger retryCounter = counterOf(service, totalRetries);
         budget = Math.max(0d, Math.min(budget, 1d)); // scale to [0, 1]
-        if ((double) retryCounter.get() / total > budget) {
+        final double overloadedRatio = Math.max(window.signaledRatio(nowMs), Math.min(1d, (double) overloads / requests));
+        if ((double) retries / requests > budget * (1 - overloadedRatio)) {
+            log.debug("service:{} retry budget exhausted, requests:{}, retries:{}, overloaded ratio:{}", service, requests, retries, overloadedRatio);
             return false;
         }
 
-        // 消耗一份预算
-        retryCounter.incrementAndGet();
         return true;
     }
 
-    private void resetWindowIfNec(String service) {
-        long nowMs = System.currentTimeMillis();
-        AtomicLong lastResetMs = lastResetMsMap.computeIfAbsent(service, k -> new AtomicLong(nowMs));
-        if (nowMs - lastResetMs.get() <= windowTtlMs) {
-            // 窗口还没过期
-            return;
+    void consume(String service) {
+        final RetryWindow window = windows.get(service);
+        if (window != null) {
+            window.current().retries.increment();
         }
+    }
+
+    /**
+     * 该key是否因为key数量达到上限而没有独立的统计.
+     *
+     * <p>与从未记录过请求的key区分开：后者仍然没有预算.</p>
+     */
+    boolean isUntracked(String service) {
+        return windows.size() >= maxKeys && !windows.containsKey(service);
+    }
+
+    int size() {
+        return windows.size();
+    }
 
-        synchronized (lastResetMs) {
-            // double check to avoid 2 executions
-            if (nowMs - lastResetMs.get() > windowTtlMs) {
-                AtomicInteger request = counterOf(service, totalRequests);
-                AtomicInteger retry = counterOf(service, totalRetries);
-                log.info("reset service:{}, (requests:{}, retries:{})", service, request.get(), retry.get());
-                request.set(0);
-                retry.set(0);
-                lastResetMs.set(nowMs);
+    /**
+     * @return null if there are too many keys
+     */
+    private RetryWindow windowOf(String service) {
+        final long nowMs = clock.currentTimeMillis();
+        RetryWindow window = windows.get(service);
+        if (window == null) {
+            if (windows.size() >= maxKeys) {
+                sweep(nowMs);
+                if (windows.size() >= maxKeys) {
+                    return null;
+                }
             }
+
+            window = windows.computeIfAbsent(service, key -> new RetryWindow(windowTtlMs));
+        }
+        window.touch(nowMs);
+        return window;
+    }
+
+    private void sweep(long nowMs) {
+        final long last = lastSweepMs.get();
+        if (nowMs - last < SWEEP_INTERVAL_MS || !lastSweepMs.compareAndSet(last, nowMs)) {
+            return;
+        }
+
+        // 与并发的访问竞争时，最多丢失被清理窗口上的几次计数
+        windows.values().removeIf(window -> window.isIdle(nowMs));
+    }
+
+    static class Counter {
+        final LongAdder requests = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder overloads = new LongAdder();
+
+        void reset() {
+            requests.reset();
+            retries.reset();
+            overloads.reset();
         }
     }
 
-    private AtomicInteger counterOf(String service, Map<String, AtomicInteger> counters) {
-        return counters.computeIfAbsent(service, k -> new AtomicInteger(0));
+    private static class RetryWindow extends SlidingTimeWindow<Counter> {
+        private final int windowTtlMs;
+
+        // server携带的集群过载节点比例：只在窗口有效期内生效
+        private volatile double signaledRatio;
+        private volatile long signaledAtMs;
+
+        private volatile long lastAccessMs;
+
+        RetryWindow(int windowTtlMs) {
+            super(BUCKETS, windowTtlMs);
+            this.windowTtlMs = windowTtlMs;
+            this.lastAccessMs = clock.currentTimeMillis();
+        }
+
+        void touch(long nowMs) {
+            if (lastAccessMs != nowMs) {
+                // 时钟精度是毫秒级，避免每个请求都写volatile
+                lastAccessMs = nowMs;
+            }
+        }
+
+        /**
+         * 整个窗口时长内没有被访问：计数和server信号都已过期.
+         */
+        boolean isIdle(long nowMs) {
+            return nowMs - lastAccessMs >= windowTtlMs;
+        }
+
+        Counter current() {
+            return current(clock.currentTimeMillis());
+        }
+
+        Counter current(long nowMs) {
+            return currentBucket(nowMs).data();
+        }
+
+        void signal(double overloadedRatio, long nowMs) {
+            signaledRatio = Math.max(0d, Math.min(overloadedRatio, 1d));
+            signaledAtMs = nowMs;
+        }
+
+        double signaledRatio(long nowMs) {
+            return nowMs - signaledAtMs < windowTtlMs ? signaledRatio : 0;
+        }
+
+        @Override
+        protected Counter newEmptyBucketData(long timeMillis) {
+            return new Counter();
+        }
+
+        @Override
+        protected Bucket<Counter> resetBucket(Bucket<Counter> bucket, long startTimeMillis) {
+            bucket.data().reset();
+            return bucket;
+        }
     }
 }
@@ -0,0 +1,94 @@
+package io.github.workload.overloading.handler;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 分层的重试预算：service → method → tenant.
+ *
+ * <ul>一次重试需要同时满足3层预算，并在3层同时消耗：
+ * <li>service：下游服务的全局重试上限，即调用方传入的预算，且随server携带的过载比例收缩</li>
+ * <li>method：每个方法的子预算，避免个别方法耗尽整个下游的预算</li>
+ * <li>tenant：每个租户(在方法下)的配额，避免个别租户的重试挤占关键下游的预算</li>
+ * </ul>
+ * <p>每层都是{@link BudgetedRetryHandler}：检查只是累加固定数量的桶，无锁；method和tenant层限制了独立统计的key数量，内存有界.</p>
+ * <p>method或tenant层因key数量达到上限而无法统计某个key时，该层不拒绝，由上一层的预算把关：否则新租户在预算充足时也会被拒绝所有重试.</p>
+ * <p>检查与消耗之间不加锁，并发下可能轻微超出预算.</p>
+ */
+@Slf4j
+class HierarchicalRetryHandler implements OverloadHandler {
+    private static final char SEPARATOR = '/';
+
+    private final BudgetedRetryHandler services;
+    private final BudgetedRetryHandler methods;
+    private final BudgetedRetryHandler tenants;
+
+    private final double methodBudget;
+    private final double tenantBudget;
+
+    /**
+     * Constructor.
+     *
+     * @param windowTtlInSeconds 滑动窗口时长
+     * @param methodBudget       每个方法的重试预算
+     * @param tenantBudget       每个租户的重试预算
+     * @param maxKeys            method层和tenant层各自最多独立统计多少个key
+     */
+    HierarchicalRetryHandler(int windowTtlInSeconds, double methodBudget, double tenantBudget, int maxKeys) {
+        this.services = new BudgetedRetryHandler(windowTtlInSeconds);
+        this.methods = new BudgetedRetryHandler(windowTtlInSeconds, maxKeys);
+        this.tenants = new BudgetedRetryHandler(windowTtlInSeconds, maxKeys);
+        this.methodBudget = methodBudget;
+        this.tenantBudget = tenantBudget;
+        log.info("created, window:{}s, method budget:{}, tenant budget:{}, max keys:{}", windowTtlInSeconds, methodBudget, tenantBudget, maxKeys);
+    }
+
+    @Override
+    public void recordRequest(String service) {
+        services.recordRequest(service);
+    }
+
+    @Override
+    public void recordRequest(String service, String method, String tenant) {
+        final String methodKey = service + SEPARATOR + method;
+        services.recordRequest(service);
+        methods.recordRequest(methodKey);
+        tenants.recordRequest(methodKey + SEPARATOR + tenant);
+    }
+
+    @Override
+    public void recordOverloaded(String service) {
+        services.recordOverloaded(service);
+    }
+
+    @Override
+    public void recordOverloaded(String service, double overloadedRatio) {
+        services.recordOverloaded(service, overloadedRatio);
+    }
+
+    @Override
+    public boolean canRetry(String service, double budget) {
+        return services.canRetry(service, budget);
+    }
+
+    @Override
+    public boolean canRetry(String service, String method, String tenant, double budget) {
+        final String methodKey = service + SEPARATOR + method;
+        final String tenantKey = methodKey + SEPARATOR + tenant;
+        // 由细到粗检查：噪声租户在最细的层级就被拦住
+        if (!withinBudget(tenants, tenantKey, tenantBudget)
+                || !withinBudget(methods, methodKey, methodBudget)
+                || !services.hasBudget(service, budget)) {
+            return false;
+        }
+
+        tenants.consume(tenantKey);
+        methods.consume(methodKey);
+        services.consume(service);
+        return true;
+    }
+
+    private static boolean withinBudget(BudgetedRetryHandler level, String key, double budget) {
+        // 该层无法独立统计这个key：交给上一层把关
+        return level.hasBudget(key, budget) || level.isUntracked(key);
+    }
+}
@@ -13,8 +13,12 @@ import io.github.workload.annotations.ThreadSafe;
  * String service = requestMessage.getInvocationBody().getClazzName();
  * handler.recordRequest(service);
  * ResponseMessage responseMessage = getNext().invoke(requestMessage); // RPC call
- * if (responseMessage.isOverloaded() && handler.canRetry(service, 0.1)) {
- *     // retry the request: SLB might dispatch it to another idle server node
+ * if (responseMessage.isOverloaded()) {
+ *     // server side: AdmissionController#overloadedRatio()
+ *     handler.recordOverloaded(service, responseMessage.getOverloadedRatio());
+ *     if (handler.canRetry(service, 0.1)) {
+ *         // retry the request: SLB might dispatch it to another idle server node
+ *     }
  * }
  * }
  * </pre>
@@ -29,6 +33,38 @@ public interface OverloadHandler {
      */
     void recordRequest(String service);
 
+    /**
+     * 记录某个服务的某个方法代表某个租户发送了一次请求.
+     *
+     * @param service 服务名称
+     * @param method  方法名称
+     * @param tenant  租户
+     */
+    default void recordRequest(String service, String method, String tenant) {
+        recordRequest(service);
+    }
+
+    /**
+     * 记录某个服务返回了一次过载响应.
+     *
+     * <p>窗口内过载响应的比例越高，说明过载越不是个别节点的问题，重试预算相应收缩.</p>
+     *
+     * @param service 服务名称
+     */
+    default void recordOverloaded(String service) {
+    }
+
+    /**
+     * 记录某个服务返回了一次过载响应，响应里携带了server感知到的集群过载节点比例.
+     *
+     * @param service         服务名称
+     * @param overloadedRatio 集群里过载节点的比例：[0, 1]，1表示均匀过载，不再重试
+     * @see io.github.workload.overloading.AdmissionController#overloadedRatio()
+     */
+    default void recordOverloaded(String service, double overloadedRatio) {
+        recordOverloaded(service);
+    }
+
     /**
      * 在指定预算下是否可以发起重试，以便可能分发到低负载节点.
      *
@@ -45,10 +81,50 @@ public interface OverloadHandler {
      */
     boolean canRetry(String service, double budget);
 
+    /**
+     * 在分层预算下是否可以发起重试.
+     *
+     * <p>不支持分层预算的实现只检查服务层的预算.</p>
+     *
+     * @param service 服务名称
+     * @param method  方法名称
+     * @param tenant  租户
+     * @param budget  该服务的全局重试预算
+     * @return true if you can retry
+     * @see #ofHierarchicalRetryBudget(double, double)
+     */
+    default boolean canRetry(String service, String method, String tenant, double budget) {
+        return canRetry(service, budget);
+    }
+
     /**
      * 创建一个新的基于重试预算的过载处理器.
      */
     static OverloadHandler ofRetryBudget() {
         return new BudgetedRetryHandler(5 * 60);
     }
+
+    /**
+     * 创建一个新的令牌桶风格的重试预算过载处理器.
+     *
+     * <p>每个请求存入ratio个令牌，每次重试取出1个令牌，{@link #canRetry(String, double)}的budget参数被忽略.</p>
+     *
+     * @param ratio 每个请求存入多少令牌：(0, 1]
+     * @param burst 桶容量，即最多可以连续重试多少次
+     */
+    static OverloadHandler ofRetryTokenBucket(double ratio, int burst) {
+        return new TokenBucketRetryHandler(ratio, burst);
+    }
+
+    /**
+     * 创建一个新的分层(service → method → tenant)重试预算的过载处理器.
+     *
+     * <p>服务层预算由{@link #canRetry(String, String, String, double)}调用时指定.</p>
+     *
+     * @param methodBudget 每个方法的重试预算
+     * @param tenantBudget 每个租户的重试预算
+     */
+    static OverloadHandler ofHierarchicalRetryBudget(double methodBudget, double tenantBudget) {
+        return new HierarchicalRetryHandler(5 * 60, methodBudget, tenantBudget, 10_000);
+    }
 }
@@ -0,0 +1,144 @@
+package io.github.workload.overloading.handler;
+
+import io.github.workload.SystemClock;
+import io.github.workload.annotations.VisibleForTesting;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 令牌桶风格的重试预算(gRPC retry throttling/Finagle RetryBudget).
+ *
+ * <p>每个请求存入ratio个令牌，每次重试取出1个令牌，桶容量为burst：重试被平滑地限制在请求量的ratio以内，不存在窗口重置后预算被瞬间耗尽的问题.</p>
+ * <p>桶初始是满的(与gRPC一致)：冷启动或新的服务允许burst次重试，而不是在攒够令牌前拒绝所有重试.</p>
+ * <p>令牌以千分之一为单位存储在{@link AtomicLong}里，无竞争时每次调用只需一次CAS.</p>
+ * <p>server携带的集群过载比例会等比例地减少存入的令牌；该信号只在{@link #SIGNAL_TTL_MS}内有效，过期后恢复存入，否则一次满过载的响应会使该服务永远不能重试.</p>
+ */
+class TokenBucketRetryHandler implements OverloadHandler {
+    static final long MILLI_TOKENS = 1000;
+    static final long SIGNAL_TTL_MS = 30_000;
+
+    // 只在有过载信号时读取，不需要实时时钟
+    private static final SystemClock clock = SystemClock.ofPrecisionMs(SystemClock.PRECISION_DRIFT_MS, TokenBucketRetryHandler.class.getSimpleName());
+
+    private final long depositMilliTokens;
+    private final long capacityMilliTokens;
+    private final long signalTtlMs;
+
+    private final Map<String /* service */, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param ratio 每个请求存入多少令牌：(0, 1]，0.1表示每10个请求允许1次重试
+     * @param burst 桶容量，即最多可以连续重试多少次
+     */
+    TokenBucketRetryHandler(double ratio, int burst) {
+        this(ratio, burst, SIGNAL_TTL_MS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param ratio       每个请求存入多少令牌：(0, 1]，0.1表示每10个请求允许1次重试
+     * @param burst       桶容量，即最多可以连续重试多少次
+     * @param signalTtlMs server过载信号的有效期
+     */
+    TokenBucketRetryHandler(double ratio, int burst, long signalTtlMs) {
+        if (ratio <= 0 || ratio > 1) {
+            throw new IllegalArgumentException("ratio must be in (0, 1]");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be positive");
+        }
+        this.depositMilliTokens = Math.max(1, Math.round(ratio * MILLI_TOKENS));
+        this.capacityMilliTokens = burst * MILLI_TOKENS;
+        this.signalTtlMs = signalTtlMs;
+    }
+
+    @Override
+    public void recordRequest(String service) {
+        Bucket bucket = bucketOf(service);
+        final long deposit = (long) (depositMilliTokens * (1 - bucket.overloadedRatio(signalTtlMs)));
+        if (deposit > 0) {
+            bucket.deposit(deposit, capacityMilliTokens);
+        }
+    }
+
+    @Override
+    public void recordOverloaded(String service, double overloadedRatio) {
+        bucketOf(service).signal(overloadedRatio, clock.currentTimeMillis());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>预算由构造时的ratio决定，参数{@code budget}被忽略.</p>
+     */
+    @Override
+    public boolean canRetry(String service, double budget) {
+        return bucketOf(service).withdraw(MILLI_TOKENS);
+    }
+
+    @VisibleForTesting
+    long milliTokens(String service) {
+        return bucketOf(service).milliTokens.get();
+    }
+
+    private Bucket bucketOf(String service) {
+        Bucket bucket = buckets.get(service);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(service, key -> new Bucket(capacityMilliTokens));
+        }
+        return bucket;
+    }
+
+    private static class Bucket {
+        private final AtomicLong milliTokens;
+
+        // server携带的集群过载节点比例：只在有效期内生效
+        private volatile double overloadedRatio;
+        private volatile long signaledAtMs;
+
+        Bucket(long initialMilliTokens) {
+            this.milliTokens = new AtomicLong(initialMilliTokens);
+        }
+
+        void signal(double ratio, long nowMs) {
+            overloadedRatio = Math.max(0d, Math.min(ratio, 1d));
+            signaledAtMs = nowMs;
+        }
+
+        double overloadedRatio(long ttlMs) {
+            final double ratio = overloadedRatio;
+            if (ratio == 0) {
+                // 绝大多数情况：没有过载信号，不读时钟
+                return 0;
+            }
+            return clock.currentTimeMillis() - signaledAtMs < ttlMs ? ratio : 0;
+        }
+
+        void deposit(long amount, long capacity) {
+            long current;
+            do {
+                current = milliTokens.get();
+                if (current >= capacity) {
+                    // 桶满了，不必CAS
+                    return;
+                }
+            } while (!milliTokens.compareAndSet(current, Math.min(capacity, current + amount)));
+        }
+
+        boolean withdraw(long amount) {
+            long current;
+            do {
+                current = milliTokens.get();
+                if (current < amount) {
+                    return false;
+                }
+            } while (!milliTokens.compareAndSet(current, current - amount));
+            return true;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package io.github.workload.overloading.metrics;
 
 import io.github.workload.WorkloadPriority;
+import io.github.workload.metrics.tumbling.WindowConfig;
 
 public interface IMetricsTracker extends AutoCloseable {
 
@@ -10,6 +11,16 @@ public interface IMetricsTracker extends AutoCloseable {
 
     default void shedByQueue(WorkloadPriority priority) {}
 
+    default void shedByCluster(WorkloadPriority priority) {}
+
+    /**
+     * 跟踪shedder采样窗口的(时间，数量)周期，它们随负载自适应地变化.
+     *
+     * @param shedder cpu or queue
+     * @param config  窗口配置
+     */
+    default void trackWindow(String shedder, WindowConfig<?> config) {}
+
     @Override
     default void close() {}
 }
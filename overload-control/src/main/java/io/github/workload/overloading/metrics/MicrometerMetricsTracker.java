@@ -1,22 +1,33 @@
 package io.github.workload.overloading.metrics;
 
 import io.github.workload.WorkloadPriority;
+import io.github.workload.metrics.tumbling.WindowConfig;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * {@link IMetricsTracker Metrics tracker} for Micrometer.
  */
 public class MicrometerMetricsTracker implements IMetricsTracker {
     private static final String METRIC_NAME = "workload.admission";
+    private static final String WINDOW_TIME_CYCLE = "workload.window.time_cycle_ms";
+    private static final String WINDOW_REQUEST_CYCLE = "workload.window.request_cycle";
 
+    private final String name;
     private final MeterRegistry meterRegistry;
+    private final List<Gauge> windowGauges = new CopyOnWriteArrayList<>();
 
     private final Counter total;
     private final Counter shedByCpu;
     private final Counter shedByQueue;
+    private final Counter shedByCluster;
 
     public MicrometerMetricsTracker(String name, MeterRegistry meterRegistry) {
+        this.name = name;
         this.meterRegistry = meterRegistry;
 
         total = Counter.builder(METRIC_NAME)
@@ -28,6 +39,9 @@ public class MicrometerMetricsTracker implements IMetricsTracker {
         shedByQueue = Counter.builder(METRIC_NAME)
                 .tag(name, "shed_queue")
                 .register(meterRegistry);
+        shedByCluster = Counter.builder(METRIC_NAME)
+                .tag(name, "shed_cluster")
+                .register(meterRegistry);
     }
 
     @Override
@@ -45,10 +59,27 @@ public class MicrometerMetricsTracker implements IMetricsTracker {
         shedByQueue.increment();
     }
 
+    @Override
+    public void shedByCluster(WorkloadPriority priority) {
+        shedByCluster.increment();
+    }
+
+    @Override
+    public void trackWindow(String shedder, WindowConfig<?> config) {
+        windowGauges.add(Gauge.builder(WINDOW_TIME_CYCLE, config, WindowConfig::getTimeCycleMs)
+                .tag(name, shedder)
+                .register(meterRegistry));
+        windowGauges.add(Gauge.builder(WINDOW_REQUEST_CYCLE, config, WindowConfig::getRequestCycle)
+                .tag(name, shedder)
+                .register(meterRegistry));
+    }
+
     @Override
     public void close() {
         meterRegistry.remove(total);
         meterRegistry.remove(shedByCpu);
         meterRegistry.remove(shedByQueue);
+        meterRegistry.remove(shedByCluster);
+        windowGauges.forEach(meterRegistry::remove);
     }
 }
@@ -7,6 +7,8 @@ import lombok.Getter;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.IntConsumer;
 
 /**
@@ -38,6 +40,17 @@ public class CardDealer {
     @Heuristics
     static final int MaxHashBits = 60;
 
+    /**
+     * 每个线程复用一个MD5 digest，避免每次发牌都查找provider并创建digest.
+     */
+    private static final ThreadLocal<MessageDigest> md5Digest = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    });
+
     /**
      * 总共有多少张牌.
      *
@@ -55,7 +68,23 @@ public class CardDealer {
     @Getter
     private final int handSize;
 
+    /**
+     * 把抓牌者特征标识映射为哈希值.
+     */
+    @Getter
+    private final HashFunction hashFunction;
+
+    /**
+     * 抓牌者特征标识到手中牌的缓存，null表示不缓存.
+     */
+    private final Map<String, int[]> handCache;
+    private final int cacheSize;
+
     CardDealer(int deckSize, int handSize) throws IllegalArgumentException {
+        this(deckSize, handSize, HashFunction.MD5, 0);
+    }
+
+    CardDealer(int deckSize, int handSize, HashFunction hashFunction, int cacheSize) throws IllegalArgumentException {
         if (deckSize < 1 || handSize < 1) {
             throw new IllegalArgumentException("deckSize or handSize is not positive");
         }
@@ -70,9 +99,18 @@ public class CardDealer {
             // 此外，handSize通常与失败重试次数密切相关
             throw new IllegalArgumentException(String.format("required entropy bits of deckSize %d and handSize %d is greater than %d", deckSize, handSize, MaxHashBits));
         }
+        if (hashFunction == null) {
+            throw new IllegalArgumentException("hashFunction cannot be null");
+        }
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize cannot be negative");
+        }
 
         this.deckSize = deckSize;
         this.handSize = handSize;
+        this.hashFunction = hashFunction;
+        this.cacheSize = cacheSize;
+        this.handCache = cacheSize > 0 ? new ConcurrentHashMap<>(Math.min(cacheSize, 1024)) : null;
     }
 
     public static Builder builder() {
@@ -142,17 +180,23 @@ public class CardDealer {
      */
     @VisibleForTesting
     void dealIntoHand(long hashValue, int[] hand) throws IllegalArgumentException {
-        if (hand == null || hand.length != this.handSize) {
-            throw new IllegalArgumentException("hand cannot be null and must have length of handSize");
-        }
+        checkHand(hand);
 
         // zero out the sign bit
         this.deal(hashValue & Long.MAX_VALUE, new Acceptor(hand));
     }
 
+    private void checkHand(int[] hand) throws IllegalArgumentException {
+        if (hand == null || hand.length != this.handSize) {
+            throw new IllegalArgumentException("hand cannot be null and must have length of handSize");
+        }
+    }
+
     /**
      * 根据抓牌者特征标识，将一副牌洗牌并分成手中牌，每张牌的选择是随机的，且不重复.
      *
+     * <p>开启缓存时，命中缓存的标识直接复制手中牌，不再哈希和发牌.</p>
+     *
      * @param identifier 抓牌者特征标识. Cannot be null
      * @param hand       手中牌. Cannot be null, and size must equal {@code handSize}
      * @throws IllegalArgumentException
@@ -162,28 +206,77 @@ public class CardDealer {
             throw new IllegalArgumentException("identifier cannot be null");
         }
 
-        dealIntoHand(hash(identifier), hand);
+        if (handCache == null) {
+            dealIntoHand(hashFunction.hash(identifier), hand);
+            return;
+        }
+
+        checkHand(hand);
+        final int[] cached = handCache.get(identifier);
+        if (cached != null) {
+            System.arraycopy(cached, 0, hand, 0, handSize);
+            return;
+        }
+
+        dealIntoHand(hashFunction.hash(identifier), hand);
+        if (handCache.size() >= cacheSize) {
+            // 发牌是确定的，整体清空只影响命中率，不影响结果；避免维护LRU带来的锁竞争
+            handCache.clear();
+        }
+        handCache.put(identifier, hand.clone());
     }
 
     @VisibleForTesting
     static long hash(String identifier) {
-        long hashValue = 0;
-        try {
-            MessageDigest digest = MessageDigest.getInstance("MD5");
-            digest.update(identifier.getBytes(StandardCharsets.UTF_8));
-            byte[] checksum = digest.digest();
-            // use the first 64 bits of the checksum as hashValue
-            for (int i = 0; i < 8; i++) {
-                hashValue += ((long) checksum[i] & 0xFFL) << (8 * i);
-            }
-        } catch (NoSuchAlgorithmException ignored) {
+        return HashFunction.MD5.hash(identifier);
+    }
+
+    private static long md5(String identifier) {
+        MessageDigest digest = md5Digest.get();
+        if (digest == null) {
             // degrade
-            hashValue = identifier.hashCode();
+            return identifier.hashCode();
         }
 
+        // digest()会reset，可以复用
+        byte[] checksum = digest.digest(identifier.getBytes(StandardCharsets.UTF_8));
+        long hashValue = 0;
+        // use the first 64 bits of the checksum as hashValue
+        for (int i = 0; i < 8; i++) {
+            hashValue += ((long) checksum[i] & 0xFFL) << (8 * i);
+        }
         return hashValue;
     }
 
+    /**
+     * 把抓牌者特征标识映射为64位哈希值的函数.
+     *
+     * <p>不同的哈希函数对同一个标识发出的牌不同：切换哈希函数会让所有租户重新分配节点.</p>
+     */
+    public enum HashFunction {
+        /**
+         * MD5的前64位，默认值，与历史发牌结果兼容.
+         */
+        MD5 {
+            @Override
+            long hash(String identifier) {
+                return md5(identifier);
+            }
+        },
+
+        /**
+         * xxHash64：非加密哈希，分布同样均匀，开销低一个数量级.
+         */
+        XXHASH64 {
+            @Override
+            long hash(String identifier) {
+                return XxHash64.hash(identifier.getBytes(StandardCharsets.UTF_8), 0);
+            }
+        };
+
+        abstract long hash(String identifier);
+    }
+
     private static class Acceptor implements IntConsumer {
         private int idx = 0;
 
@@ -209,6 +302,8 @@ public class CardDealer {
     public static class Builder {
         private int deckSize;
         private int handSize;
+        private HashFunction hashFunction = HashFunction.MD5;
+        private int cacheSize;
 
         /**
          * 设置总共有多少张牌.
@@ -226,8 +321,26 @@ public class CardDealer {
             return this;
         }
 
+        /**
+         * 设置哈希函数，默认{@link HashFunction#MD5}.
+         */
+        public Builder hashFunction(HashFunction hashFunction) {
+            this.hashFunction = hashFunction;
+            return this;
+        }
+
+        /**
+         * 设置最多缓存多少个抓牌者的手中牌，默认0：不缓存.
+         *
+         * <p>适用于抓牌者数量有限且每个请求都要发牌的场景，例如：网关按租户路由.</p>
+         */
+        public Builder cacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
         public CardDealer build() {
-            return new CardDealer(deckSize, handSize);
+            return new CardDealer(deckSize, handSize, hashFunction, cacheSize);
         }
     }
 
@@ -0,0 +1,207 @@
+package io.github.workload.shufflesharding;
+
+import io.github.workload.annotations.VisibleForTesting;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 按可用区感知的{@link CardDealer}：每个租户的手中牌均匀分布在各个可用区.
+ *
+ * <p>{@link CardDealer}把所有节点看作一副牌，租户的节点可能恰好都在同一个可用区，该可用区故障时租户的所有节点都不可用.</p>
+ * <ul>每个可用区是一副独立的牌：
+ * <li>牌按可用区连续编号：可用区z的牌是{@code [offset(z), offset(z) + zoneSize(z))}</li>
+ * <li>每个可用区发{@code ceil(handSize / zones)}张牌，因此总的手中牌数量会向上取整为可用区数量的倍数</li>
+ * <li>各可用区的发牌由同一个标识哈希值派生，确定且相互独立：一个可用区故障，租户仍有其他可用区的节点</li>
+ * </ul>
+ * <p>两个租户手中牌的期望重叠数与{@link CardDealer}相同(各可用区大小相同时)：{@code handSize² / deckSize}.</p>
+ *
+ * @see <a href="https://github.com/grafana/dskit/blob/main/ring/ring.go">Grafana dskit zone-aware shuffle sharding</a>
+ */
+public class ZoneAwareCardDealer {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * 每个可用区一个发牌者.
+     */
+    private final CardDealer[] zoneDealers;
+
+    /**
+     * 每个可用区第一张牌的编号.
+     */
+    private final int[] zoneOffsets;
+
+    /**
+     * 总共有多少张牌.
+     */
+    @Getter
+    private final int deckSize;
+
+    /**
+     * 每个可用区发多少张牌.
+     */
+    @Getter
+    private final int handSizePerZone;
+
+    /**
+     * 手里要抓几张牌：{@code handSizePerZone * zones}.
+     */
+    @Getter
+    private final int handSize;
+
+    private final CardDealer.HashFunction hashFunction;
+
+    ZoneAwareCardDealer(int[] zoneSizes, int handSize, CardDealer.HashFunction hashFunction) throws IllegalArgumentException {
+        if (zoneSizes == null || zoneSizes.length == 0) {
+            throw new IllegalArgumentException("zoneSizes cannot be empty");
+        }
+        if (handSize < 1) {
+            throw new IllegalArgumentException("handSize is not positive");
+        }
+        if (hashFunction == null) {
+            throw new IllegalArgumentException("hashFunction cannot be null");
+        }
+
+        final int zones = zoneSizes.length;
+        this.handSizePerZone = (handSize + zones - 1) / zones;
+        this.handSize = handSizePerZone * zones;
+        this.zoneDealers = new CardDealer[zones];
+        this.zoneOffsets = new int[zones];
+        long deck = 0;
+        for (int z = 0; z < zones; z++) {
+            zoneOffsets[z] = (int) deck;
+            // 由CardDealer校验每个可用区的牌数和熵
+            zoneDealers[z] = new CardDealer(zoneSizes[z], handSizePerZone);
+            deck += zoneSizes[z];
+            if (deck > 1 << 26) {
+                throw new IllegalArgumentException("deckSize is impractically large");
+            }
+        }
+        this.deckSize = (int) deck;
+        this.hashFunction = hashFunction;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 有多少个可用区.
+     */
+    public int zones() {
+        return zoneDealers.length;
+    }
+
+    /**
+     * 某张牌属于哪个可用区.
+     *
+     * @param card 牌，[0, deckSize)
+     * @return 可用区，[0, zones)
+     * @throws IllegalArgumentException if card is out of the deck
+     */
+    public int zoneOf(int card) throws IllegalArgumentException {
+        if (card < 0 || card >= deckSize) {
+            throw new IllegalArgumentException("card is out of deck");
+        }
+
+        int z = zoneOffsets.length - 1;
+        while (zoneOffsets[z] > card) {
+            z--;
+        }
+        return z;
+    }
+
+    /**
+     * 根据抓牌者特征标识发牌，每个可用区发{@link #handSizePerZone}张牌.
+     *
+     * @param identifier 抓牌者特征标识. Cannot be null
+     * @param hand       手中牌，按可用区排列：{@code hand[z * handSizePerZone, (z + 1) * handSizePerZone)}属于可用区z. Cannot be null, and size must equal {@code handSize}
+     * @throws IllegalArgumentException
+     */
+    public void dealIntoHand(String identifier, int[] hand) throws IllegalArgumentException {
+        if (identifier == null) {
+            throw new IllegalArgumentException("identifier cannot be null");
+        }
+
+        dealIntoHand(hashFunction.hash(identifier), hand);
+    }
+
+    @VisibleForTesting
+    void dealIntoHand(long hashValue, int[] hand) throws IllegalArgumentException {
+        if (hand == null || hand.length != handSize) {
+            throw new IllegalArgumentException("hand cannot be null and must have length of handSize");
+        }
+
+        final int[] zoneHand = new int[handSizePerZone];
+        for (int z = 0; z < zoneDealers.length; z++) {
+            zoneDealers[z].dealIntoHand(zoneHash(hashValue, z), zoneHand);
+            final int base = z * handSizePerZone;
+            for (int i = 0; i < handSizePerZone; i++) {
+                hand[base + i] = zoneOffsets[z] + zoneHand[i];
+            }
+        }
+    }
+
+    /**
+     * 从同一个哈希值为每个可用区派生独立的哈希值：SplitMix64.
+     *
+     * <p>若直接复用同一个哈希值，大小相同的可用区会发出相同位置的牌，租户之间在每个可用区的重叠是相关的.</p>
+     */
+    @VisibleForTesting
+    static long zoneHash(long hashValue, int zone) {
+        long z = hashValue + (zone + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * {@link ZoneAwareCardDealer} builder.
+     */
+    public static class Builder {
+        private int[] zoneSizes;
+        private int handSize;
+        private CardDealer.HashFunction hashFunction = CardDealer.HashFunction.MD5;
+
+        /**
+         * 设置每个可用区有多少张牌.
+         */
+        public Builder zoneSizes(int... zoneSizes) {
+            this.zoneSizes = zoneSizes == null ? null : zoneSizes.clone();
+            return this;
+        }
+
+        /**
+         * 设置有多少个可用区，每个可用区多少张牌.
+         */
+        public Builder zones(int zones, int zoneSize) {
+            if (zones < 1) {
+                throw new IllegalArgumentException("zones is not positive");
+            }
+
+            this.zoneSizes = new int[zones];
+            Arrays.fill(zoneSizes, zoneSize);
+            return this;
+        }
+
+        /**
+         * 设置手中发多少张牌，会向上取整为可用区数量的倍数.
+         */
+        public Builder handSize(int handSize) {
+            this.handSize = handSize;
+            return this;
+        }
+
+        /**
+         * 设置哈希函数，默认{@link CardDealer.HashFunction#MD5}.
+         */
+        public Builder hashFunction(CardDealer.HashFunction hashFunction) {
+            this.hashFunction = hashFunction;
+            return this;
+        }
+
+        public ZoneAwareCardDealer build() {
+            return new ZoneAwareCardDealer(zoneSizes, handSize, hashFunction);
+        }
+    }
+}
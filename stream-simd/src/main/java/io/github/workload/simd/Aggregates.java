@@ -0,0 +1,260 @@
+package io.github.workload.simd;
+
+import lombok.NonNull;
+
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+/**
+ * 纯Java的数组聚合：不依赖JNI，任何主机上都可用.
+ *
+ * <p>循环展开为4路独立的累加器，打破循环迭代之间的数据依赖，CPU可以并行执行，HotSpot C2也更容易对其做SuperWord自动向量化.</p>
+ * <p>语义与JDK的{@code LongStream/IntStream/DoubleStream}一致：整数求和溢出时回绕，空数组时min/max/avg为empty，double的min/max遇到NaN返回NaN.</p>
+ * <p>NOTE：double求和的累加顺序与顺序流不同，但与JDK一样使用补偿求和，舍入误差不会随数组长度累积，就像并行流一样.</p>
+ */
+public final class Aggregates {
+    private Aggregates() {
+    }
+
+    public static long sum(@NonNull long[] values) {
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        final int n = values.length;
+        final int bound = n & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += values[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    public static OptionalLong min(@NonNull long[] values) {
+        final int n = values.length;
+        if (n == 0) {
+            return OptionalLong.empty();
+        }
+
+        long m0 = values[0], m1 = m0, m2 = m0, m3 = m0;
+        final int bound = n & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            m0 = Math.min(m0, values[i]);
+            m1 = Math.min(m1, values[i + 1]);
+            m2 = Math.min(m2, values[i + 2]);
+            m3 = Math.min(m3, values[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.min(m0, values[i]);
+        }
+        return OptionalLong.of(Math.min(Math.min(m0, m1), Math.min(m2, m3)));
+    }
+
+    public static OptionalLong max(@NonNull long[] values) {
+        final int n = values.length;
+        if (n == 0) {
+            return OptionalLong.empty();
+        }
+
+        long m0 = values[0], m1 = m0, m2 = m0, m3 = m0;
+        final int bound = n & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            m0 = Math.max(m0, values[i]);
+            m1 = Math.max(m1, values[i + 1]);
+            m2 = Math.max(m2, values[i + 2]);
+            m3 = Math.max(m3, values[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.max(m0, values[i]);
+        }
+        return OptionalLong.of(Math.max(Math.max(m0, m1), Math.max(m2, m3)));
+    }
+
+    public static OptionalDouble average(@NonNull long[] values) {
+        return values.length == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum(values) / values.length);
+    }
+
+    /**
+     * 求和，结果是long：与{@code IntStream.sum()}不同，不会溢出.
+     */
+    public static long sum(@NonNull int[] values) {
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        final int n = values.length;
+        final int bound = n & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += values[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    public static OptionalInt min(@NonNull int[] values) {
+        final int n = values.length;
+        if (n == 0) {
+            return OptionalInt.empty();
+        }
+
+        int m0 = values[0], m1 = m0, m2 = m0, m3 = m0;
+        final int bound = n & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            m0 = Math.min(m0, values[i]);
+            m1 = Math.min(m1, values[i + 1]);
+            m2 = Math.min(m2, values[i + 2]);
+            m3 = Math.min(m3, values[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.min(m0, values[i]);
+        }
+        return OptionalInt.of(Math.min(Math.min(m0, m1), Math.min(m2, m3)));
+    }
+
+    public static OptionalInt max(@NonNull int[] values) {
+        final int n = values.length;
+        if (n == 0) {
+            return OptionalInt.empty();
+        }
+
+        int m0 = values[0], m1 = m0, m2 = m0, m3 = m0;
+        final int bound = n & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            m0 = Math.max(m0, values[i]);
+            m1 = Math.max(m1, values[i + 1]);
+            m2 = Math.max(m2, values[i + 2]);
+            m3 = Math.max(m3, values[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.max(m0, values[i]);
+        }
+        return OptionalInt.of(Math.max(Math.max(m0, m1), Math.max(m2, m3)));
+    }
+
+    public static OptionalDouble average(@NonNull int[] values) {
+        return values.length == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum(values) / values.length);
+    }
+
+    /**
+     * 求和：每路累加器各自做Kahan补偿求和，合并时同样补偿，精度与{@code DoubleStream.sum()}相当.
+     */
+    public static double sum(@NonNull double[] values) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        // 各路的补偿项：真实和约等于 s - c
+        double c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        final int n = values.length;
+        final int bound = n & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            double y, t;
+            y = values[i] - c0;
+            t = s0 + y;
+            c0 = (t - s0) - y;
+            s0 = t;
+
+            y = values[i + 1] - c1;
+            t = s1 + y;
+            c1 = (t - s1) - y;
+            s1 = t;
+
+            y = values[i + 2] - c2;
+            t = s2 + y;
+            c2 = (t - s2) - y;
+            s2 = t;
+
+            y = values[i + 3] - c3;
+            t = s3 + y;
+            c3 = (t - s3) - y;
+            s3 = t;
+        }
+        for (; i < n; i++) {
+            final double y = values[i] - c0;
+            final double t = s0 + y;
+            c0 = (t - s0) - y;
+            s0 = t;
+        }
+
+        final double sum = kahan(s0, -c0, s1, -c1, s2, -c2, s3, -c3);
+        if (Double.isNaN(sum)) {
+            // 与JDK一致：同号无穷大相加时，补偿项会变成NaN，此时以朴素求和为准
+            return naiveSum(values);
+        }
+        return sum;
+    }
+
+    private static double kahan(double... parts) {
+        double sum = 0, c = 0;
+        for (double part : parts) {
+            final double y = part - c;
+            final double t = sum + y;
+            c = (t - sum) - y;
+            sum = t;
+        }
+        return sum - c;
+    }
+
+    private static double naiveSum(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    public static OptionalDouble min(@NonNull double[] values) {
+        final int n = values.length;
+        if (n == 0) {
+            return OptionalDouble.empty();
+        }
+
+        double m0 = values[0], m1 = m0, m2 = m0, m3 = m0;
+        final int bound = n & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            m0 = Math.min(m0, values[i]);
+            m1 = Math.min(m1, values[i + 1]);
+            m2 = Math.min(m2, values[i + 2]);
+            m3 = Math.min(m3, values[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.min(m0, values[i]);
+        }
+        return OptionalDouble.of(Math.min(Math.min(m0, m1), Math.min(m2, m3)));
+    }
+
+    public static OptionalDouble max(@NonNull double[] values) {
+        final int n = values.length;
+        if (n == 0) {
+            return OptionalDouble.empty();
+        }
+
+        double m0 = values[0], m1 = m0, m2 = m0, m3 = m0;
+        final int bound = n & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            m0 = Math.max(m0, values[i]);
+            m1 = Math.max(m1, values[i + 1]);
+            m2 = Math.max(m2, values[i + 2]);
+            m3 = Math.max(m3, values[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.max(m0, values[i]);
+        }
+        return OptionalDouble.of(Math.max(Math.max(m0, m1), Math.max(m2, m3)));
+    }
+
+    public static OptionalDouble average(@NonNull double[] values) {
+        return values.length == 0 ? OptionalDouble.empty() : OptionalDouble.of(sum(values) / values.length);
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.workload.simd;
+
+import lombok.NonNull;
+
+import java.nio.LongBuffer;
+import java.util.OptionalLong;
+
+/**
+ * 纯Java的{@link LongBufferAggregator}：与{@link Aggregates}一样4路展开.
+ *
+ * <p>使用绝对位置的{@link LongBuffer#get(int)}，direct buffer上由JIT内联为直接的内存读取.</p>
+ */
+class JavaLongBufferAggregator implements LongBufferAggregator {
+    static final JavaLongBufferAggregator INSTANCE = new JavaLongBufferAggregator();
+
+    @Override
+    public long sum(@NonNull LongBuffer buffer) {
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        final int limit = buffer.limit();
+        final int bound = buffer.position() + ((limit - buffer.position()) & ~3);
+        int i = buffer.position();
+        for (; i < bound; i += 4) {
+            s0 += buffer.get(i);
+            s1 += buffer.get(i + 1);
+            s2 += buffer.get(i + 2);
+            s3 += buffer.get(i + 3);
+        }
+        for (; i < limit; i++) {
+            s0 += buffer.get(i);
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    @Override
+    public OptionalLong min(@NonNull LongBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            return OptionalLong.empty();
+        }
+
+        long m0 = buffer.get(buffer.position()), m1 = m0, m2 = m0, m3 = m0;
+        final int limit = buffer.limit();
+        final int bound = buffer.position() + ((limit - buffer.position()) & ~3);
+        int i = buffer.position();
+        for (; i < bound; i += 4) {
+            m0 = Math.min(m0, buffer.get(i));
+            m1 = Math.min(m1, buffer.get(i + 1));
+            m2 = Math.min(m2, buffer.get(i + 2));
+            m3 = Math.min(m3, buffer.get(i + 3));
+        }
+        for (; i < limit; i++) {
+            m0 = Math.min(m0, buffer.get(i));
+        }
+        return OptionalLong.of(Math.min(Math.min(m0, m1), Math.min(m2, m3)));
+    }
+
+    @Override
+    public OptionalLong max(@NonNull LongBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            return OptionalLong.empty();
+        }
+
+        long m0 = buffer.get(buffer.position()), m1 = m0, m2 = m0, m3 = m0;
+        final int limit = buffer.limit();
+        final int bound = buffer.position() + ((limit - buffer.position()) & ~3);
+        int i = buffer.position();
+        for (; i < bound; i += 4) {
+            m0 = Math.max(m0, buffer.get(i));
+            m1 = Math.max(m1, buffer.get(i + 1));
+            m2 = Math.max(m2, buffer.get(i + 2));
+            m3 = Math.max(m3, buffer.get(i + 3));
+        }
+        for (; i < limit; i++) {
+            m0 = Math.max(m0, buffer.get(i));
+        }
+        return OptionalLong.of(Math.max(Math.max(m0, m1), Math.max(m2, m3)));
+    }
+}
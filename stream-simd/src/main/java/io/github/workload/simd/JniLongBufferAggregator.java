@@ -0,0 +1,25 @@
+package io.github.workload.simd;
+
+import lombok.NonNull;
+
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.OptionalLong;
+
+/**
+ * 原生代码直接读取direct buffer的内存地址，零拷贝.
+ *
+ * <p>原生代码只实现了max；非direct或非本机字节序的buffer，原生代码无法直接读取，回退到纯Java实现.</p>
+ */
+class JniLongBufferAggregator extends JavaLongBufferAggregator {
+    static final JniLongBufferAggregator INSTANCE = new JniLongBufferAggregator();
+
+    @Override
+    public OptionalLong max(@NonNull LongBuffer buffer) {
+        if (!buffer.hasRemaining() || !buffer.isDirect() || buffer.order() != ByteOrder.nativeOrder()) {
+            return super.max(buffer);
+        }
+
+        return OptionalLong.of(JniStreamEnhancer.findMaxIdDirect(buffer, buffer.position(), buffer.remaining()));
+    }
+}
@@ -2,6 +2,8 @@ package io.github.workload.simd;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.LongBuffer;
+
 @Slf4j
 class JniStreamEnhancer {
     private static final String JNI_STREAM_ENHANCER = "jni_stream_enhancer";
@@ -27,4 +29,13 @@ class JniStreamEnhancer {
     public static native long findMaxId(long[] ids);
     public static native long findMinId(long[] ids);
     public static native long countLong(long[] ids);
+
+    /**
+     * 直接读取direct buffer的内存地址：调用者保证buffer是direct且本机字节序的.
+     *
+     * @param buffer direct {@link LongBuffer}
+     * @param offset 从第几个long开始
+     * @param length long的个数
+     */
+    public static native long findMaxIdDirect(LongBuffer buffer, int offset, int length);
 }
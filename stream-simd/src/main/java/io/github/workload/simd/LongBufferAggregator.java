@@ -0,0 +1,37 @@
+package io.github.workload.simd;
+
+import lombok.NonNull;
+
+import java.nio.LongBuffer;
+import java.util.OptionalLong;
+
+/**
+ * {@link LongBuffer}上的聚合：数据可以在堆外(direct buffer，内存映射文件)生成一次，之后零拷贝地扫描.
+ *
+ * <p>只聚合{@code [position, limit)}之间的数据，不改变buffer的position/limit.</p>
+ * <p>JNI库可用时，本机字节序的direct buffer由原生代码直接读取其内存地址，没有JNI数组的pin/copy；其他情况使用纯Java实现，接口相同.</p>
+ *
+ * @see OffHeapLongs
+ */
+public interface LongBufferAggregator {
+
+    long sum(@NonNull LongBuffer buffer);
+
+    OptionalLong min(@NonNull LongBuffer buffer);
+
+    OptionalLong max(@NonNull LongBuffer buffer);
+
+    /**
+     * 当前主机上最优的实现.
+     */
+    static LongBufferAggregator getDefault() {
+        return JniStreamEnhancer.isAvailable() ? JniLongBufferAggregator.INSTANCE : JavaLongBufferAggregator.INSTANCE;
+    }
+
+    /**
+     * 纯Java实现.
+     */
+    static LongBufferAggregator java() {
+        return JavaLongBufferAggregator.INSTANCE;
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.workload.simd;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 堆外的long数据集：本机字节序，可以被{@link LongBufferAggregator}的原生实现零拷贝地扫描.
+ */
+public final class OffHeapLongs {
+    private OffHeapLongs() {
+    }
+
+    /**
+     * 分配堆外的long数据集.
+     *
+     * @param count long的个数
+     */
+    public static LongBuffer allocateDirect(int count) {
+        if (count < 0 || count > Integer.MAX_VALUE / Long.BYTES) {
+            throw new IllegalArgumentException("count must be in [0, " + Integer.MAX_VALUE / Long.BYTES + "]");
+        }
+        return ByteBuffer.allocateDirect(count * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    /**
+     * 只读地内存映射文件：文件内容是本机字节序的long数组.
+     *
+     * <p>映射在buffer被GC后才释放，与文件通道的关闭无关.</p>
+     *
+     * @param file 文件大小必须是8的整数倍，且不超过2GB
+     * @throws IOException if the file cannot be mapped
+     */
+    public static LongBuffer map(@NonNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size % Long.BYTES != 0 || size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("file size must be a multiple of 8 and not exceed 2GB: " + size);
+            }
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return mapped.order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+    }
+}
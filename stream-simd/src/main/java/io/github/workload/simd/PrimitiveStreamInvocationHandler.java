@@ -0,0 +1,112 @@
+package io.github.workload.simd;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.BaseStream;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * 数组上的{@link LongStream}/{@link IntStream}/{@link DoubleStream}：聚合时直接在数组上计算，不装箱、不复制.
+ *
+ * <p>其他操作透传给数组上的流；与普通的流一样只能被操作一次，再次操作抛出{@link IllegalStateException}.</p>
+ */
+class PrimitiveStreamInvocationHandler implements InvocationHandler {
+    private static final Set<String> ENHANCEABLE_METHODS = new HashSet<>(Arrays.asList("sum", "min", "max", "average", "count"));
+    // 不会链接或消费流的方法
+    private static final Set<String> NON_CONSUMING_METHODS = new HashSet<>(Arrays.asList("isParallel", "close", "hashCode", "equals", "toString"));
+
+    private final Supplier<BaseStream<?, ?>> streamSupplier;
+    // long[]/int[]/double[]
+    private final Object array;
+    private BaseStream<?, ?> stream;
+    private boolean consumed;
+
+    PrimitiveStreamInvocationHandler(Object array, Supplier<BaseStream<?, ?>> streamSupplier) {
+        this.array = array;
+        this.streamSupplier = streamSupplier;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        final String methodName = method.getName();
+        if (!NON_CONSUMING_METHODS.contains(methodName)) {
+            if (consumed) {
+                // 与JDK的流一致
+                throw new IllegalStateException("stream has already been operated upon or closed");
+            }
+            consumed = true;
+        }
+
+        if (ENHANCEABLE_METHODS.contains(methodName) && (args == null || args.length == 0)) {
+            return aggregate(methodName, array);
+        }
+
+        // fallback to the stream over the array
+        try {
+            return method.invoke(stream(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private BaseStream<?, ?> stream() {
+        if (stream == null) {
+            stream = streamSupplier.get();
+        }
+        return stream;
+    }
+
+    private static Object aggregate(String methodName, Object array) {
+        if (array instanceof long[]) {
+            final long[] values = (long[]) array;
+            switch (methodName) {
+                case "sum":
+                    return Aggregates.sum(values);
+                case "min":
+                    return Aggregates.min(values);
+                case "max":
+                    return StreamEnhancer.max(values);
+                case "average":
+                    return Aggregates.average(values);
+                default:
+                    return (long) values.length;
+            }
+        } else if (array instanceof int[]) {
+            final int[] values = (int[]) array;
+            switch (methodName) {
+                case "sum":
+                    // 与IntStream.sum()一致：溢出时回绕
+                    return (int) Aggregates.sum(values);
+                case "min":
+                    return Aggregates.min(values);
+                case "max":
+                    return Aggregates.max(values);
+                case "average":
+                    return Aggregates.average(values);
+                default:
+                    return (long) values.length;
+            }
+        }
+
+        final double[] values = (double[]) array;
+        switch (methodName) {
+            case "sum":
+                return Aggregates.sum(values);
+            case "min":
+                return Aggregates.min(values);
+            case "max":
+                return Aggregates.max(values);
+            case "average":
+                return Aggregates.average(values);
+            default:
+                return (long) values.length;
+        }
+    }
+}
@@ -1,25 +1,89 @@
 package io.github.workload.simd;
 
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static java.lang.reflect.Proxy.newProxyInstance;
 
+/**
+ * 流的增强入口.
+ *
+ * <ul>
+ * <li>{@link #enhance(Stream)}：装箱的流原样返回，聚合前的物化和拆箱比聚合本身还贵</li>
+ * <li>{@link #enhance(LongStream)}等原始类型流：原样返回，JDK的原始类型流聚合本身不装箱、不分配内存，物化成数组只会更慢</li>
+ * <li>{@link #enhance(long[])}等数组入口：直接在数组上聚合sum/min/max/average/count，没有任何复制，其他操作透传给数组上的流</li>
+ * </ul>
+ */
 public class StreamEnhancer {
 
     /**
-     * 封装 {@link Stream}，底层通过{@code SIMD}加速，上层透明.
+     * 原样返回装箱的流.
+     *
+     * <p>增强装箱流需要先物化(toArray)再拆箱成long[]，两次O(n)的复制，即使由原生代码计算max也比JDK的流更慢，
+     * see {@code StreamEnhancerBenchmark#jdkBoxedLongMax}；需要加速时请直接使用原始类型数组的入口.</p>
      */
-    @SuppressWarnings("unchecked")
     public static <T> Stream<T> enhance(Stream<T> stream) {
-        if (!JniStreamEnhancer.isAvailable()) {
-            // fallback
-            return stream;
+        return stream;
+    }
+
+    /**
+     * 原样返回：{@link LongStream#max()}/{@link LongStream#sum()}等已经不装箱、不分配内存，
+     * 物化成数组再聚合需要O(n)的额外内存，只会更慢，数组已在手时请用{@link #enhance(long[])}.
+     */
+    public static LongStream enhance(@NonNull LongStream stream) {
+        return stream;
+    }
+
+    /**
+     * 原样返回，see {@link #enhance(LongStream)}.
+     */
+    public static IntStream enhance(@NonNull IntStream stream) {
+        return stream;
+    }
+
+    /**
+     * 原样返回，see {@link #enhance(LongStream)}；另外{@link DoubleStream#sum()}是补偿求和，精度高于逐项累加.
+     */
+    public static DoubleStream enhance(@NonNull DoubleStream stream) {
+        return stream;
+    }
+
+    /**
+     * 数组上的增强流：聚合操作直接在数组上计算.
+     *
+     * <p>NOTE：聚合时读取的是数组的当前内容，使用者要确保数组不会被并发修改.</p>
+     * <p>与普通的流一样只能被操作一次：再次操作抛出{@link IllegalStateException}.</p>
+     */
+    public static LongStream enhance(@NonNull long[] values) {
+        return proxy(LongStream.class, new PrimitiveStreamInvocationHandler(values, () -> Arrays.stream(values)));
+    }
+
+    public static IntStream enhance(@NonNull int[] values) {
+        return proxy(IntStream.class, new PrimitiveStreamInvocationHandler(values, () -> Arrays.stream(values)));
+    }
+
+    public static DoubleStream enhance(@NonNull double[] values) {
+        return proxy(DoubleStream.class, new PrimitiveStreamInvocationHandler(values, () -> Arrays.stream(values)));
+    }
+
+    /**
+     * long数组的最大值：JNI库可用时由原生代码计算.
+     */
+    static OptionalLong max(long[] values) {
+        if (values.length > 0 && JniStreamEnhancer.isAvailable()) {
+            return OptionalLong.of(JniStreamEnhancer.findMaxId(values));
         }
+        return Aggregates.max(values);
+    }
 
-        return (Stream<T>) newProxyInstance(
-                Stream.class.getClassLoader(),
-                new Class<?>[]{Stream.class},
-                new StreamInvocationHandler<>(stream)
-        );
+    @SuppressWarnings("unchecked")
+    private static <S> S proxy(Class<S> type, PrimitiveStreamInvocationHandler handler) {
+        return (S) newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
     }
 }
@@ -38,6 +38,19 @@ extern "C" JNIEXPORT jlong JNICALL Java_io_github_workload_simd_JniStreamEnhance
     return maxId;
 }
 
+// 直接读取 direct buffer 的内存地址：没有 JNI 数组的 pin/copy
+// 热路径：不写日志，实现只在首次调用时选择一次(C++11 保证局部静态变量的初始化是线程安全的)
+extern "C" JNIEXPORT jlong JNICALL Java_io_github_workload_simd_JniStreamEnhancer_findMaxIdDirect(JNIEnv* env, jclass clazz, jobject buffer, jint offset, jint length) {
+    static jlong (*const impl)(jlong*, jsize) = getOptimizedImplementation();
+
+    jlong* array = static_cast<jlong*>(env->GetDirectBufferAddress(buffer));
+    if (array == nullptr) {
+        return std::numeric_limits<jlong>::min();
+    }
+
+    return impl(array + offset, length);
+}
+
 // 检测 AVX2 支持
 bool isAvx2Supported() {
     unsigned int eax, ebx, ecx, edx;
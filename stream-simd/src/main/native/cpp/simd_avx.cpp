@@ -6,14 +6,26 @@
 #include <immintrin.h>
 
 jlong avxImplementation(jlong* array, jsize length) {
-    __m256i max_vec = _mm256_set1_epi64x(std::numeric_limits<jlong>::min());
-    for (jsize i = 0; i < length; i += 4) {
-        __m256i vec = _mm256_loadu_si256(reinterpret_cast<__m256i*>(&array[i]));
-        max_vec = _mm256_max_epi64(max_vec, vec);
+    jlong max_value = std::numeric_limits<jlong>::min();
+    jsize i = 0;
+    if (length >= 4) {
+        __m256i max_vec = _mm256_set1_epi64x(max_value);
+        for (; i + 4 <= length; i += 4) {
+            __m256i vec = _mm256_loadu_si256(reinterpret_cast<__m256i*>(&array[i]));
+            // AVX2 没有 64 位的 max 指令：比较后按掩码混合
+            __m256i gt = _mm256_cmpgt_epi64(vec, max_vec);
+            max_vec = _mm256_blendv_epi8(max_vec, vec, gt);
+        }
+        alignas(32) jlong max_values[4];
+        _mm256_store_si256(reinterpret_cast<__m256i*>(max_values), max_vec);
+        max_value = *std::max_element(max_values, max_values + 4);
     }
-    alignas(32) jlong max_values[4];
-    _mm256_store_si256(reinterpret_cast<__m256i*>(max_values), max_vec);
-    return *std::max_element(max_values, max_values + 4);
+
+    // 处理不足一个向量宽度的尾部元素，不能越过 length 读取
+    for (; i < length; i++) {
+        max_value = std::max(max_value, array[i]);
+    }
+    return max_value;
 }
 #else
 jlong avxImplementation(jlong* array, jsize length) {
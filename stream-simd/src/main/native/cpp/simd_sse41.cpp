@@ -7,7 +7,8 @@
 
 jlong sse41Implementation(jlong* array, jsize length) {
     jlong max_value = std::numeric_limits<jlong>::min();
-    for (jsize i = 0; i < length; i += 2) {
+    jsize i = 0;
+    for (; i + 2 <= length; i += 2) {
         __m128i vec = _mm_loadu_si128(reinterpret_cast<__m128i*>(&array[i]));
         
         // 提取两个 64 位整数
@@ -18,9 +19,9 @@ jlong sse41Implementation(jlong* array, jsize length) {
         max_value = std::max({max_value, val1, val2});
     }
     
-    // 处理剩余的单个元素（如果长度为奇数）
-    if (length % 2 != 0) {
-        max_value = std::max(max_value, array[length - 1]);
+    // 处理剩余的单个元素（如果长度为奇数），不能越过 length 读取
+    for (; i < length; i++) {
+        max_value = std::max(max_value, array[i]);
     }
     
     return max_value;
@@ -9,4 +9,18 @@ public interface GreedyLimiter {
 
     boolean canAcquire(String key, int permits);
 
+    /**
+     * 预约令牌：如果能在{@code maxWaitNanos}内获取，则预约并返回需要等待的时长.
+     *
+     * <p>平滑限流器可以精确算出等待时长；默认实现退化为{@link #canAcquire(String, int)}，调用者需要稍后重试.</p>
+     *
+     * @param key          限流的key
+     * @param permits      令牌数
+     * @param maxWaitNanos 最多愿意等待多久
+     * @return 预约成功时返回需要等待的纳秒数(0表示立即可用)，否则返回-1
+     */
+    default long tryReserve(String key, int permits, long maxWaitNanos) {
+        return canAcquire(key, permits) ? 0 : -1;
+    }
+
 }
@@ -0,0 +1,136 @@
+package io.github.workload.safe;
+
+import io.github.workload.HashedWheelTimer;
+import io.github.workload.annotations.ThreadSafe;
+import io.github.workload.greedy.GreedyException;
+import io.github.workload.greedy.GreedyLimiter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批次的节奏控制：通过{@link GreedyLimiter}限制批次的处理速率，避免批量任务打满共享的DB等下游.
+ *
+ * <p>每个批次消耗的令牌数是它的成本({@link SafeBatcher.Batch#getCosts()})，数据项不是{@link io.github.workload.CostAware}时是数据项数量.</p>
+ * <ul>超出速率时：
+ * <li>阻塞：{@link #pace(SafeBatcher.Batch)}，配置在{@link SafeBatcher.Guard#getPacer()}时批次在交给使用者前被阻塞</li>
+ * <li>异步延迟：{@link #paceAsync(SafeBatcher.Batch)}，不占用线程</li>
+ * </ul>
+ * <p>最多等待{@code maxWaitMs}，仍未获得令牌时抛出{@link GreedyException}.</p>
+ */
+@Slf4j
+@ThreadSafe
+public class BatchPacer {
+    // 不支持预约的限流器：轮询的退避区间
+    private static final long MIN_BACKOFF_MS = 1;
+    private static final long MAX_BACKOFF_MS = 64;
+
+    private final GreedyLimiter limiter;
+    private final String key;
+    private final long maxWaitNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param limiter   限流器，例如{@link SmoothTokenBucketLimiter}
+     * @param key       限流的key
+     * @param maxWaitMs 每个批次最多等待多久
+     */
+    public BatchPacer(@NonNull GreedyLimiter limiter, @NonNull String key, long maxWaitMs) {
+        if (maxWaitMs < 0) {
+            throw new IllegalArgumentException("maxWaitMs cannot be negative");
+        }
+        this.limiter = limiter;
+        this.key = key;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+    }
+
+    /**
+     * 本地平滑令牌桶的节奏控制.
+     *
+     * @param permitsPerSecond 每秒处理多少成本(或数据项)
+     * @param maxWaitMs        每个批次最多等待多久
+     */
+    public static BatchPacer ofLocal(double permitsPerSecond, long maxWaitMs) {
+        return new BatchPacer(new SmoothTokenBucketLimiter(permitsPerSecond, 1), "local", maxWaitMs);
+    }
+
+    /**
+     * 阻塞直到该批次可以被处理.
+     *
+     * @throws GreedyException       if not permitted within maxWaitMs
+     * @throws CancellationException if interrupted while waiting
+     */
+    public void pace(@NonNull SafeBatcher.Batch<?> batch) {
+        final int permits = permits(batch);
+        final long deadlineNanos = System.nanoTime() + maxWaitNanos;
+        long backoffMs = MIN_BACKOFF_MS;
+        try {
+            while (true) {
+                final long remainingNanos = deadlineNanos - System.nanoTime();
+                final long waitNanos = limiter.tryReserve(key, permits, Math.max(0, remainingNanos));
+                if (waitNanos >= 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    return;
+                }
+                if (remainingNanos <= 0) {
+                    log.warn("[{}] batch not permitted within {}ms, permits:{}", key, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos), permits);
+                    throw new GreedyException();
+                }
+
+                TimeUnit.NANOSECONDS.sleep(Math.min(remainingNanos, TimeUnit.MILLISECONDS.toNanos(backoffMs)));
+                backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs << 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("interrupted while pacing");
+        }
+    }
+
+    /**
+     * 异步地等待该批次可以被处理，不阻塞调用者线程.
+     *
+     * @return 可以处理时以该批次完成，超过maxWaitMs时以{@link GreedyException}异常完成
+     */
+    public <T> CompletableFuture<SafeBatcher.Batch<T>> paceAsync(@NonNull SafeBatcher.Batch<T> batch) {
+        CompletableFuture<SafeBatcher.Batch<T>> future = new CompletableFuture<>();
+        tryReserveAsync(batch, permits(batch), System.nanoTime() + maxWaitNanos, MIN_BACKOFF_MS, future);
+        return future;
+    }
+
+    private <T> void tryReserveAsync(SafeBatcher.Batch<T> batch, int permits, long deadlineNanos, long backoffMs, CompletableFuture<SafeBatcher.Batch<T>> future) {
+        final long remainingNanos = deadlineNanos - System.nanoTime();
+        final long waitNanos;
+        try {
+            waitNanos = limiter.tryReserve(key, permits, Math.max(0, remainingNanos));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            return;
+        }
+
+        if (waitNanos == 0) {
+            future.complete(batch);
+        } else if (waitNanos > 0) {
+            Timer.INSTANCE.newTimeout(() -> future.complete(batch), waitNanos, TimeUnit.NANOSECONDS);
+        } else if (remainingNanos <= 0) {
+            future.completeExceptionally(new GreedyException());
+        } else {
+            final long nextBackoffMs = Math.min(MAX_BACKOFF_MS, backoffMs << 1);
+            Timer.INSTANCE.newTimeout(() -> tryReserveAsync(batch, permits, deadlineNanos, nextBackoffMs, future),
+                    Math.min(remainingNanos, TimeUnit.MILLISECONDS.toNanos(backoffMs)), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    static int permits(SafeBatcher.Batch<?> batch) {
+        final int costs = batch.getCosts();
+        return Math.max(1, costs > 0 ? costs : batch.size());
+    }
+
+    // 只有使用异步延迟时才创建定时器线程
+    private static class Timer {
+        private static final HashedWheelTimer INSTANCE = new HashedWheelTimer(BatchPacer.class.getSimpleName() + "-timer", 1, 512);
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.workload.safe;
+
+import io.github.workload.annotations.ThreadSafe;
+import io.github.workload.greedy.GreedyLimiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地的GCRA(Generic Cell Rate Algorithm)限流器：每个key只有一个原子long.
+ *
+ * <p>每个key只记录理论到达时间TAT：请求n个令牌后TAT前进n个发放间隔，TAT超出当前时间不超过突发容量时放行；TAT不晚于当前时间的key是空闲的.</p>
+ * <p>相比令牌桶：无锁，没有定时补充，状态只有8字节，适合高基数key.</p>
+ */
+@ThreadSafe
+public class GcraLimiter implements GreedyLimiter {
+    static final int DEFAULT_MAX_KEYS = 100_000;
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final KeyedStates<Tat> states;
+
+    public GcraLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param permitsPerSecond 每秒发放多少令牌
+     * @param burst            突发容量：空闲时最多一次获取多少令牌
+     * @param maxKeys          最多为多少个key独立限流
+     */
+    public GcraLimiter(double permitsPerSecond, int burst, int maxKeys) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * burst;
+        this.states = new KeyedStates<>(maxKeys, Tat::new);
+    }
+
+    @Override
+    public boolean canAcquire(String key, int permits) {
+        return tryReserve(key, permits, 0) >= 0;
+    }
+
+    @Override
+    public long tryReserve(String key, int permits, long maxWaitNanos) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+
+        final Tat tat = states.get(key);
+        final long nowNanos = System.nanoTime();
+        while (true) {
+            final long current = tat.get();
+            final long newTat = Math.max(current, nowNanos) + permits * intervalNanos;
+            final long waitNanos = Math.max(0, newTat - nowNanos - toleranceNanos);
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+            if (tat.compareAndSet(current, newTat)) {
+                return waitNanos;
+            }
+        }
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    // theoretical arrival time
+    private static final class Tat extends AtomicLong implements KeyedStates.State {
+        Tat() {
+            super(Long.MIN_VALUE / 2);
+        }
+
+        @Override
+        public boolean isIdle(long nowNanos) {
+            return get() <= nowNanos;
+        }
+    }
+}
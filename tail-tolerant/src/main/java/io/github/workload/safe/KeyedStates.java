@@ -0,0 +1,83 @@
+package io.github.workload.safe;
+
+import io.github.workload.annotations.ThreadSafe;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 按key维护的限流状态，内存有上限.
+ *
+ * <ul>达到{@code maxKeys}时：
+ * <li>先清理空闲的状态(例如令牌桶已满)：被清理的key按需重建，重建的状态不比空闲状态宽松，清理不会放松限流；清理最多每秒一次</li>
+ * <li>仍然没有空间时，新key被哈希到{@value #OVERFLOW_STATES}个溢出状态之一：限流配额是绝对速率，同一溢出状态的key合计不超过一个key的速率</li>
+ * </ul>
+ *
+ * @param <S> 状态类型
+ */
+@ThreadSafe
+final class KeyedStates<S extends KeyedStates.State> {
+    static final int OVERFLOW_STATES = 64;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 限流状态.
+     */
+    interface State {
+        /**
+         * 是否空闲：新建的状态不比它宽松，可以被清理.
+         */
+        boolean isIdle(long nowNanos);
+    }
+
+    private final int maxKeys;
+    private final Supplier<S> factory;
+    private final Map<String, S> states = new ConcurrentHashMap<>();
+    private final Object[] overflowStates;
+    private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+    KeyedStates(int maxKeys, Supplier<S> factory) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys must be positive");
+        }
+        this.maxKeys = maxKeys;
+        this.factory = factory;
+        this.overflowStates = new Object[OVERFLOW_STATES];
+        for (int i = 0; i < OVERFLOW_STATES; i++) {
+            overflowStates[i] = factory.get();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    S get(String key) {
+        S state = states.get(key);
+        if (state != null) {
+            return state;
+        }
+
+        if (states.size() >= maxKeys) {
+            sweep(System.nanoTime());
+            if (states.size() >= maxKeys) {
+                final int h = key.hashCode();
+                return (S) overflowStates[(h ^ (h >>> 16)) & (OVERFLOW_STATES - 1)];
+            }
+        }
+        return states.computeIfAbsent(key, k -> factory.get());
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    private void sweep(long nowNanos) {
+        final long last = lastSweepNanos.get();
+        if (nowNanos - last < SWEEP_INTERVAL_NANOS || !lastSweepNanos.compareAndSet(last, nowNanos)) {
+            return;
+        }
+
+        states.values().removeIf(state -> state.isIdle(nowNanos));
+    }
+}
@@ -7,9 +7,13 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -18,7 +22,11 @@ import java.util.stream.Collectors;
  * <p>NOTE：使用者要确保原始数据不会被意外修改.</p>
  * <ul>Features:
  * <li>避免不经意的大报文过度遍历</li>
- * <li>基于成本的条件式限流</li>
+ * <li>基于成本的条件式限流：{@link Guard#costsThreshold}</li>
+ * <li>批次的节奏控制：{@link Guard#pacer}</li>
+ * <li>按成本切分批次：{@link #ofCosts(List, int, int, Guard)}，避免重的数据项导致批次过大而超时</li>
+ * <li>数据源是游标等无法全量加载的场景：{@link StreamingBatcher}</li>
+ * <li>有界并发的并行处理：{@link #parallelForEach(Executor, int, Consumer)}，{@link #parallelMap(Executor, int, Function)}</li>
  * </ul>
  *
  * @param <T> 数据集的数据类型
@@ -36,7 +44,7 @@ public class SafeBatcher<T> implements Iterable<SafeBatcher.Batch<T>> {
      * @param guard     大报文安全保护参数, null 表示不加保护仅仅分批处理
      */
     public SafeBatcher(@NonNull List<T> dataset, int batchSize, Guard guard) {
-        validate(batchSize, guard);
+        validate(batchSize, 0, guard);
 
         this.guard = guard;
         List<List<T>> partitionedBatches = Lists.partition(dataset, batchSize);
@@ -45,7 +53,47 @@ public class SafeBatcher<T> implements Iterable<SafeBatcher.Batch<T>> {
                 .collect(Collectors.toList());
     }
 
-    private void validate(int batchSize, Guard guard) {
+    private SafeBatcher(List<Batch<T>> batches, Guard guard) {
+        this.batches = batches;
+        this.guard = guard;
+    }
+
+    /**
+     * 按累计成本切分批次，而不是固定的数据项数量.
+     *
+     * <p>批次在加入下一个数据项会超过{@code maxBatchCosts}或达到{@code maxBatchSize}时切分；单个数据项的成本就超过{@code maxBatchCosts}时，它独占一个批次.</p>
+     *
+     * @param dataset       输入数据全集
+     * @param maxBatchCosts 每个批次的最大成本
+     * @param maxBatchSize  每个批次的最大数据项数量
+     * @param guard         大报文安全保护参数, null 表示不加保护仅仅分批处理
+     * @param <T>           数据集的数据类型
+     */
+    public static <T extends CostAware> SafeBatcher<T> ofCosts(@NonNull List<T> dataset, int maxBatchCosts, int maxBatchSize, Guard guard) {
+        if (maxBatchCosts <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchCosts and maxBatchSize must be positive");
+        }
+        validate(maxBatchSize, maxBatchCosts, guard);
+
+        List<Batch<T>> batches = new ArrayList<>();
+        int start = 0;
+        long costs = 0;
+        for (int i = 0; i < dataset.size(); i++) {
+            final int cost = dataset.get(i).cost();
+            if (i > start && (costs + cost > maxBatchCosts || i - start >= maxBatchSize)) {
+                batches.add(new Batch<>(dataset.subList(start, i), (int) costs));
+                start = i;
+                costs = 0;
+            }
+            costs += cost;
+        }
+        if (start < dataset.size()) {
+            batches.add(new Batch<>(dataset.subList(start, dataset.size()), (int) costs));
+        }
+        return new SafeBatcher<>(batches, guard);
+    }
+
+    static void validate(int batchSize, int batchCosts, Guard guard) {
         if (guard == null) {
             return;
         }
@@ -53,20 +101,148 @@ public class SafeBatcher<T> implements Iterable<SafeBatcher.Batch<T>> {
         if (guard.getItemsThreshold() < batchSize) {
             throw new IllegalArgumentException("unsafeItemsThreshold must be greater than batchSize");
         }
+        if (guard.getCostsThreshold() > 0 && guard.getCostsThreshold() < batchCosts) {
+            throw new IllegalArgumentException("costsThreshold must be greater than batch costs");
+        }
     }
 
     @Override
     @NonNull
     public Iterator<Batch<T>> iterator() {
-        return new BatchesIterator<>(batches, guard);
+        return new BatchesIterator<>(batches.iterator(), guard);
+    }
+
+    /**
+     * 并行处理各批次，最多同时有{@code maxInFlight}个批次在执行.
+     *
+     * @see #parallelMap(Executor, int, Function)
+     */
+    public void parallelForEach(@NonNull Executor executor, int maxInFlight, @NonNull Consumer<Batch<T>> action) {
+        parallelMap(executor, maxInFlight, batch -> {
+            action.accept(batch);
+            return null;
+        });
+    }
+
+    /**
+     * 并行处理各批次并按批次顺序聚合结果，最多同时有{@code maxInFlight}个批次在执行.
+     *
+     * <p>调用者线程负责按顺序提交批次，并发达到上限时阻塞等待，直到所有已提交的批次执行完毕才返回.</p>
+     * <ul>遇到以下情况停止提交后续批次：
+     * <li>达到{@link Guard}的阈值：越过阈值的批次不再提交，结果只包含之前的批次</li>
+     * <li>某个批次执行失败：等待已提交的批次执行完毕后，抛出按批次顺序的第一个异常</li>
+     * </ul>
+     *
+     * @param executor    执行批次的线程池
+     * @param maxInFlight 最大并发批次数
+     * @param mapper      批次处理逻辑
+     * @param <R>         批次处理结果的类型
+     * @return 按批次顺序排列的处理结果
+     * @throws CancellationException if the calling thread is interrupted while waiting for a free slot
+     */
+    public <R> List<R> parallelMap(@NonNull Executor executor, int maxInFlight, @NonNull Function<Batch<T>, R> mapper) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final List<CompletableFuture<R>> futures = new ArrayList<>(batches.size());
+        final CompletableFuture<Void> failed = new CompletableFuture<>();
+        final BatchesIterator<T> iterator = new BatchesIterator<>(batches.iterator(), guard);
+        boolean interrupted = false;
+        while (iterator.hasNext() && !failed.isDone()) {
+            // 确定提交前不做节奏控制：不提交的批次不应阻塞调用者，也不应消耗限流器的令牌
+            final Batch<T> batch = iterator.take();
+            if (iterator.unsafe()) {
+                log.warn("Stop launching batches, launched:{}", futures.size());
+                break;
+            }
+
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+                break;
+            }
+            if (failed.isDone()) {
+                // 等待并发额度期间已有批次失败
+                inFlight.release();
+                break;
+            }
+            try {
+                iterator.pace(batch);
+            } catch (RuntimeException e) {
+                inFlight.release();
+                futures.add(failedFuture(e));
+                break;
+            }
+            final CompletableFuture<R> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> mapper.apply(batch), executor);
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                futures.add(failedFuture(e));
+                break;
+            }
+            future.whenComplete((r, e) -> {
+                if (e != null) {
+                    // 先标记失败再释放并发额度，使调用者拿到该额度后的复查能看到失败
+                    // 并不能完全阻止提交：已越过复查的批次仍会被提交
+                    failed.complete(null);
+                }
+                inFlight.release();
+            });
+            futures.add(future);
+        }
+
+        // 等待已提交的批次执行完毕
+        final List<R> results = new ArrayList<>(futures.size());
+        Throwable failure = null;
+        for (CompletableFuture<R> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() != null ? e.getCause() : e;
+                }
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new CompletionException(failure);
+        }
+        if (interrupted) {
+            throw new CancellationException("interrupted after " + futures.size() + " batches launched");
+        }
+        return results;
+    }
+
+    private static <R> CompletableFuture<R> failedFuture(Throwable e) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
     }
 
     @Getter
     public static class Batch<T> {
+        private static final int UNKNOWN_COSTS = -1;
+
         private final List<T> items;
+        private int costs;
 
         Batch(List<T> items) {
+            this(items, UNKNOWN_COSTS);
+        }
+
+        Batch(List<T> items, int costs) {
             this.items = items; // 不进行深拷贝，但使用者要确保原始数据不会被意外修改
+            this.costs = costs;
         }
 
         T first() {
@@ -77,50 +253,110 @@ public class SafeBatcher<T> implements Iterable<SafeBatcher.Batch<T>> {
             return items.size();
         }
 
-        private int costs() {
-            int costs = 0;
-            if (items != null && !items.isEmpty() && items.get(0) instanceof CostAware) {
-                for (T item : items) {
-                    costs += ((CostAware) item).cost();
+        /**
+         * 批次的成本：数据项不是{@link CostAware}时为0.
+         */
+        public int getCosts() {
+            if (costs == UNKNOWN_COSTS) {
+                int sum = 0;
+                if (items != null && !items.isEmpty() && items.get(0) instanceof CostAware) {
+                    for (T item : items) {
+                        sum += ((CostAware) item).cost();
+                    }
                 }
+                costs = sum;
             }
             return costs;
         }
     }
 
-    private static class BatchesIterator<T> implements Iterator<Batch<T>> {
+    static class BatchesIterator<T> implements Iterator<Batch<T>> {
         private final Iterator<Batch<T>> iterator;
         private final Guard guard;
         private int totalItemsProcessed = 0;
-        private int totalCosts = 0;
+        private long totalCosts = 0;
+
+        // 已取出并计入统计，尚未交给使用者的批次
+        private Batch<T> pending;
+        private boolean stopped;
 
-        BatchesIterator(List<Batch<T>> batches, Guard guard) {
-            this.iterator = batches.iterator();
+        BatchesIterator(Iterator<Batch<T>> batches, Guard guard) {
+            this.iterator = batches;
             this.guard = guard;
         }
 
         @Override
         public boolean hasNext() {
-            return iterator.hasNext();
+            if (pending != null) {
+                return true;
+            }
+            if (stopped || !iterator.hasNext()) {
+                return false;
+            }
+
+            pending = iterator.next();
+            if (guard == null) {
+                // 不加保护
+                return true;
+            }
+
+            totalItemsProcessed += pending.size();
+            if (totalItemsProcessed > guard.getItemsThreshold()) {
+                log.warn("Unsafe items threshold reached: {} > {}", totalItemsProcessed, guard.getItemsThreshold());
+            }
+            if (guard.getCostsThreshold() > 0) {
+                totalCosts += pending.getCosts();
+                if (totalCosts > guard.getCostsThreshold()) {
+                    log.warn("Unsafe costs threshold reached: {} > {}", totalCosts, guard.getCostsThreshold());
+                }
+            }
+            if (guard.isStopOnExceed() && unsafe()) {
+                // 越过阈值的批次不再交给使用者
+                stopped = true;
+                pending = null;
+                return false;
+            }
+            return true;
         }
 
         @Override
         public Batch<T> next() {
+            final Batch<T> batch = take();
+            pace(batch);
+            return batch;
+        }
+
+        /**
+         * 取出下一个批次，不做节奏控制.
+         */
+        Batch<T> take() {
             if (!hasNext()) {
                 throw new NoSuchElementException();
             }
 
-            final Batch<T> batch = iterator.next();
-            if (guard == null) {
-                // 不加保护
-                return batch;
+            final Batch<T> batch = pending;
+            pending = null;
+            return batch;
+        }
+
+        /**
+         * 按{@link Guard#getPacer()}阻塞直到该批次可以被处理.
+         */
+        void pace(Batch<T> batch) {
+            if (guard != null && guard.getPacer() != null) {
+                guard.getPacer().pace(batch);
             }
+        }
 
-            totalItemsProcessed += batch.size();
-            if (totalItemsProcessed > guard.getItemsThreshold()) {
-                log.warn("Unsafe items threshold reached: {} > {}", totalItemsProcessed, guard.getItemsThreshold());
+        /**
+         * 已处理的数据是否越过了{@link Guard}的阈值.
+         */
+        boolean unsafe() {
+            if (guard == null) {
+                return false;
             }
-            return batch;
+            return totalItemsProcessed > guard.getItemsThreshold()
+                    || (guard.getCostsThreshold() > 0 && totalCosts > guard.getCostsThreshold());
         }
     }
 
@@ -128,6 +364,22 @@ public class SafeBatcher<T> implements Iterable<SafeBatcher.Batch<T>> {
     @Builder
     public static class Guard {
         private final int itemsThreshold;
+
+        /**
+         * 累计成本阈值，0表示不检查成本.
+         */
         private final int costsThreshold;
+
+        /**
+         * 越过阈值后是否停止产出批次：false(默认)只告警，true则越过阈值的批次及后续批次都不再产出.
+         *
+         * <p>并行处理时总是停止提交.</p>
+         */
+        private final boolean stopOnExceed;
+
+        /**
+         * 批次的节奏控制：批次在交给使用者(并行处理时是提交)之前被阻塞，null表示不控制.
+         */
+        private final BatchPacer pacer;
     }
 }
\ No newline at end of file
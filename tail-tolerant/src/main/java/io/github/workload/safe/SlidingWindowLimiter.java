@@ -0,0 +1,96 @@
+package io.github.workload.safe;
+
+import io.github.workload.annotations.ThreadSafe;
+import io.github.workload.greedy.GreedyLimiter;
+import io.github.workload.metrics.sliding.Bucket;
+import io.github.workload.metrics.sliding.SlidingTimeWindow;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地的滑动窗口计数限流器：窗口内获取的令牌不超过{@code permitsPerWindow}.
+ *
+ * <p>基于{@link SlidingTimeWindow}，过期的桶逐个滑出，不会出现固定窗口边界处的两倍突刺.</p>
+ * <p>检查与计数不是原子的：并发时可能略微超发，适合对精度要求不高的大报文节奏控制.</p>
+ * <p>时间基准是单调的{@link System#nanoTime()}，与{@link KeyedStates}的清理使用同一时钟，也不受NTP时钟回拨影响.</p>
+ */
+@ThreadSafe
+public class SlidingWindowLimiter implements GreedyLimiter {
+    static final int BUCKETS = 10;
+
+    // SlidingTimeWindow 要求时间非负，而 nanoTime 可能为负：以类加载时刻为原点
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    private final long permitsPerWindow;
+    private final KeyedStates<Window> states;
+
+    public SlidingWindowLimiter(long permitsPerWindow, int windowMs) {
+        this(permitsPerWindow, windowMs, GcraLimiter.DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param permitsPerWindow 窗口内最多获取多少令牌
+     * @param windowMs         窗口时长，均分为{@value #BUCKETS}个桶
+     * @param maxKeys          最多为多少个key独立限流
+     */
+    public SlidingWindowLimiter(long permitsPerWindow, int windowMs, int maxKeys) {
+        if (permitsPerWindow <= 0 || windowMs < BUCKETS) {
+            throw new IllegalArgumentException("permitsPerWindow must be positive and windowMs cannot be less than " + BUCKETS);
+        }
+        this.permitsPerWindow = permitsPerWindow;
+        this.states = new KeyedStates<>(maxKeys, () -> new Window(windowMs));
+    }
+
+    @Override
+    public boolean canAcquire(String key, int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+
+        final Window window = states.get(key);
+        final long nowMs = toMillis(System.nanoTime());
+        long acquired = 0;
+        for (AtomicLong counter : window.values(nowMs)) {
+            acquired += counter.get();
+        }
+        if (acquired + permits > permitsPerWindow) {
+            return false;
+        }
+
+        window.currentBucket(nowMs).data().addAndGet(permits);
+        return true;
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos - ORIGIN_NANOS);
+    }
+
+    static final class Window extends SlidingTimeWindow<AtomicLong> implements KeyedStates.State {
+        Window(int windowMs) {
+            super(BUCKETS, windowMs);
+        }
+
+        @Override
+        public boolean isIdle(long nowNanos) {
+            return values(toMillis(nowNanos)).isEmpty();
+        }
+
+        @Override
+        protected AtomicLong newEmptyBucketData(long timeMillis) {
+            return new AtomicLong();
+        }
+
+        @Override
+        protected Bucket<AtomicLong> resetBucket(Bucket<AtomicLong> bucket, long startTimeMillis) {
+            bucket.data().set(0);
+            return bucket;
+        }
+    }
+}
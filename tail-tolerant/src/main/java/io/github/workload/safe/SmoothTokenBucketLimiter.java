@@ -0,0 +1,83 @@
+package io.github.workload.safe;
+
+import io.github.workload.annotations.ThreadSafe;
+import io.github.workload.greedy.GreedyLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地的平滑令牌桶限流器，不依赖外部服务.
+ *
+ * <p>类似Guava的{@code SmoothBursty}，按key独立限流：令牌匀速产生，空闲时最多积累{@code maxBurstSeconds}秒的令牌.</p>
+ * <p>允许预支：一个大批次可以一次取走超过当前存量的令牌，由后续的请求等待偿还，因此大批次不会饿死，整体速率仍然是平滑的.</p>
+ */
+@ThreadSafe
+public class SmoothTokenBucketLimiter implements GreedyLimiter {
+    private final double intervalNanos;
+    private final double maxPermits;
+    private final KeyedStates<Bucket> buckets;
+
+    public SmoothTokenBucketLimiter(double permitsPerSecond, double maxBurstSeconds) {
+        this(permitsPerSecond, maxBurstSeconds, GcraLimiter.DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param permitsPerSecond 每秒产生多少令牌
+     * @param maxBurstSeconds  空闲时最多积累多少秒的令牌
+     * @param maxKeys          最多为多少个key独立限流
+     */
+    public SmoothTokenBucketLimiter(double permitsPerSecond, double maxBurstSeconds, int maxKeys) {
+        if (permitsPerSecond <= 0 || maxBurstSeconds < 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive and maxBurstSeconds cannot be negative");
+        }
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.maxPermits = permitsPerSecond * maxBurstSeconds;
+        this.buckets = new KeyedStates<>(maxKeys, Bucket::new);
+    }
+
+    @Override
+    public boolean canAcquire(String key, int permits) {
+        return tryReserve(key, permits, 0) >= 0;
+    }
+
+    @Override
+    public long tryReserve(String key, int permits, long maxWaitNanos) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+
+        return buckets.get(key).tryReserve(permits, maxWaitNanos, System.nanoTime());
+    }
+
+    private class Bucket implements KeyedStates.State {
+        private double storedPermits;
+        // 下一个请求可以获取令牌的时间
+        private volatile long nextFreeNanos = System.nanoTime();
+
+        @Override
+        public boolean isIdle(long nowNanos) {
+            // 令牌已积累满
+            return nowNanos - nextFreeNanos >= maxPermits * intervalNanos;
+        }
+
+        synchronized long tryReserve(int permits, long maxWaitNanos, long nowNanos) {
+            final long waitNanos = Math.max(0, nextFreeNanos - nowNanos);
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+
+            if (nowNanos > nextFreeNanos) {
+                // 空闲期间积累的令牌
+                storedPermits = Math.min(maxPermits, storedPermits + (nowNanos - nextFreeNanos) / intervalNanos);
+                nextFreeNanos = nowNanos;
+            }
+            final double fromStored = Math.min(permits, storedPermits);
+            storedPermits -= fromStored;
+            // 存量不足的部分预支，由后续请求等待偿还
+            nextFreeNanos += (long) ((permits - fromStored) * intervalNanos);
+            return waitNanos;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.workload.safe;
+
+import io.github.workload.annotations.NotThreadSafe;
+import lombok.NonNull;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 流式的{@link SafeBatcher}：从{@link Iterator}/{@link Spliterator}/{@link Stream}按需拉取数据，惰性地产出批次.
+ *
+ * <p>适用于数据库游标、消息拉取等无法全量加载的数据源：批次复用同一个缓冲区，内存占用是O(batchSize)而不是O(dataset).</p>
+ * <p>{@link SafeBatcher.Guard}的保护同样适用：{@link SafeBatcher.Guard#isStopOnExceed()}时越过阈值就不再从数据源拉取.</p>
+ * <p>NOTE：批次的数据项在下一次调用{@link Iterator#hasNext()}/{@link Iterator#next()}时被覆盖，使用者不能持有批次；只能遍历一次.</p>
+ *
+ * @param <T> 数据集的数据类型
+ */
+@NotThreadSafe
+public class StreamingBatcher<T> implements Iterable<SafeBatcher.Batch<T>> {
+    private final Spliterator<T> source;
+    private final int batchSize;
+    private final SafeBatcher.Guard guard;
+    private boolean iterated;
+
+    /**
+     * 构造函数.
+     *
+     * @param source    数据源
+     * @param batchSize size of each batch
+     * @param guard     大报文安全保护参数, null 表示不加保护仅仅分批处理
+     */
+    public StreamingBatcher(@NonNull Spliterator<T> source, int batchSize, SafeBatcher.Guard guard) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        SafeBatcher.validate(batchSize, 0, guard);
+
+        this.source = source;
+        this.batchSize = batchSize;
+        this.guard = guard;
+    }
+
+    public StreamingBatcher(@NonNull Iterator<T> source, int batchSize, SafeBatcher.Guard guard) {
+        this(Spliterators.spliteratorUnknownSize(source, Spliterator.ORDERED), batchSize, guard);
+    }
+
+    public StreamingBatcher(@NonNull Stream<T> source, int batchSize, SafeBatcher.Guard guard) {
+        this(source.spliterator(), batchSize, guard);
+    }
+
+    /**
+     * @throws IllegalStateException if already iterated
+     */
+    @Override
+    @NonNull
+    public Iterator<SafeBatcher.Batch<T>> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("StreamingBatcher can only be iterated once");
+        }
+
+        iterated = true;
+        return new SafeBatcher.BatchesIterator<>(new BufferedBatches(), guard);
+    }
+
+    private class BufferedBatches implements Iterator<SafeBatcher.Batch<T>> {
+        private final List<T> buffer = new ArrayList<>(batchSize);
+        private final List<T> view = Collections.unmodifiableList(buffer);
+        private final Consumer<T> collector = buffer::add;
+        private boolean filled;
+
+        @Override
+        public boolean hasNext() {
+            if (!filled) {
+                buffer.clear();
+                while (buffer.size() < batchSize && source.tryAdvance(collector)) {
+                    // 拉取直到批次满或数据源耗尽
+                }
+                filled = true;
+            }
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public SafeBatcher.Batch<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            filled = false;
+            return new SafeBatcher.Batch<>(view);
+        }
+    }
+}
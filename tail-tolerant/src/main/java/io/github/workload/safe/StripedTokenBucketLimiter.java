@@ -0,0 +1,146 @@
+package io.github.workload.safe;
+
+import io.github.workload.annotations.ThreadSafe;
+import io.github.workload.greedy.GreedyLimiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 本地的分段令牌桶限流器：热点key在高并发下的锁竞争被分散到多个分段.
+ *
+ * <p>每个key的速率和容量均分到{@code stripes}个分段，线程优先从自己的分段获取，不足时依次尝试其他分段.</p>
+ * <p>单个分段容量不足的大请求，按分段顺序锁住所有分段后合并获取.</p>
+ */
+@ThreadSafe
+public class StripedTokenBucketLimiter implements GreedyLimiter {
+    private final int stripes;
+    private final double stripePermitsPerNano;
+    private final double stripeCapacity;
+    private final long refillNanos;
+    private final KeyedStates<Bucket> states;
+
+    public StripedTokenBucketLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, Math.min(16, Runtime.getRuntime().availableProcessors()), GcraLimiter.DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param permitsPerSecond 每秒产生多少令牌
+     * @param burst            令牌桶容量
+     * @param stripes          分段数量，会向上取整为2的幂
+     * @param maxKeys          最多为多少个key独立限流
+     */
+    public StripedTokenBucketLimiter(double permitsPerSecond, int burst, int stripes, int maxKeys) {
+        if (permitsPerSecond <= 0 || burst <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond, burst and stripes must be positive");
+        }
+        this.stripes = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripePermitsPerNano = permitsPerSecond / this.stripes / TimeUnit.SECONDS.toNanos(1);
+        this.stripeCapacity = (double) burst / this.stripes;
+        this.refillNanos = (long) (stripeCapacity / stripePermitsPerNano);
+        this.states = new KeyedStates<>(maxKeys, Bucket::new);
+    }
+
+    @Override
+    public boolean canAcquire(String key, int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+
+        final Bucket bucket = states.get(key);
+        final long nowNanos = System.nanoTime();
+        if (permits <= stripeCapacity) {
+            final int home = (int) Thread.currentThread().getId() & (stripes - 1);
+            for (int i = 0; i < stripes; i++) {
+                if (bucket.stripes[(home + i) & (stripes - 1)].tryTake(permits, nowNanos)) {
+                    return true;
+                }
+            }
+        }
+        return bucket.tryTakeAll(permits, nowNanos);
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    private final class Bucket implements KeyedStates.State {
+        private final Stripe[] stripes;
+
+        Bucket() {
+            this.stripes = new Stripe[StripedTokenBucketLimiter.this.stripes];
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        // 按分段顺序加锁，避免死锁
+        boolean tryTakeAll(int permits, long nowNanos) {
+            int locked = 0;
+            try {
+                double available = 0;
+                for (Stripe stripe : stripes) {
+                    stripe.lock();
+                    locked++;
+                    stripe.refill(nowNanos);
+                    available += stripe.tokens;
+                }
+                if (available < permits) {
+                    return false;
+                }
+
+                double remaining = permits;
+                for (Stripe stripe : stripes) {
+                    final double taken = Math.min(remaining, stripe.tokens);
+                    stripe.tokens -= taken;
+                    remaining -= taken;
+                }
+                return true;
+            } finally {
+                for (int i = 0; i < locked; i++) {
+                    stripes[i].unlock();
+                }
+            }
+        }
+
+        @Override
+        public boolean isIdle(long nowNanos) {
+            for (Stripe stripe : stripes) {
+                if (nowNanos - stripe.lastRefillNanos < refillNanos) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final class Stripe extends ReentrantLock {
+        private double tokens = stripeCapacity;
+        private volatile long lastRefillNanos = System.nanoTime();
+
+        boolean tryTake(int permits, long nowNanos) {
+            lock();
+            try {
+                refill(nowNanos);
+                if (tokens < permits) {
+                    return false;
+                }
+                tokens -= permits;
+                return true;
+            } finally {
+                unlock();
+            }
+        }
+
+        // 调用者持有锁
+        void refill(long nowNanos) {
+            final long elapsedNanos = nowNanos - lastRefillNanos;
+            if (elapsedNanos > 0) {
+                tokens = Math.min(stripeCapacity, tokens + elapsedNanos * stripePermitsPerNano);
+                lastRefillNanos = nowNanos;
+            }
+        }
+    }
+}
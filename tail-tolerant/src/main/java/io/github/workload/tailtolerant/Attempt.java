@@ -0,0 +1,124 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.tailtolerant.HedgedRequest.CancellableTask;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次可取消的请求尝试：原始请求或对冲请求，多个尝试竞争完成同一个结果.
+ *
+ * <p>落败者被取消：{@link CancellationToken}通知，并中断执行线程.</p>
+ *
+ * @param <R> 请求返回的结果类型
+ */
+class Attempt<R> implements Runnable {
+    private final CancellableTask<R> task;
+    private final CompletableFuture<R> result;
+    private final Executor executor;
+    private final HedgeMetrics metrics;
+    private final CancellationToken token = new CancellationToken();
+
+    // 执行中的线程，受this保护：执行结束后不会再被中断
+    private Thread runner;
+    private long startNs;
+    private boolean finished;
+    private volatile boolean launched;
+
+    Attempt(CancellableTask<R> task, CompletableFuture<R> result, Executor executor, HedgeMetrics metrics) {
+        this.task = task;
+        this.result = result;
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 提交执行.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the executor rejects it
+     */
+    void launch() {
+        launched = true;
+        executor.execute(this);
+    }
+
+    /**
+     * 执行时长样本，每次执行至多一次：执行结束时的时长，或被取消时已执行的时长(真实时长的下界).
+     *
+     * <p>无论胜负都会回调；还未开始执行就被取消的没有样本.</p>
+     *
+     * @param elapsedMs 执行时长
+     */
+    void onSample(long elapsedMs) {
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (token.isCancelled() || result.isDone()) {
+                // 另一个请求已经完成
+                return;
+            }
+            runner = Thread.currentThread();
+            startNs = System.nanoTime();
+        }
+
+        R value = null;
+        Throwable failure = null;
+        try {
+            value = task.call(token);
+        } catch (Throwable e) {
+            failure = e;
+        }
+        synchronized (this) {
+            // 此后不会再被中断
+            runner = null;
+            finished = true;
+        }
+        if (token.isCancelled()) {
+            // 清除中断标记，避免影响线程池里的下一个任务
+            Thread.interrupted();
+        }
+
+        final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+        if (!token.isCancelled()) {
+            // 被取消的已在cancel时采样
+            onSample(elapsedMs);
+        }
+        final boolean won;
+        if (failure == null) {
+            won = result.complete(value);
+        } else {
+            won = !token.isCancelled() && result.completeExceptionally(failure);
+        }
+        if (won) {
+            metrics.onUseful(elapsedMs);
+        } else {
+            metrics.onWasted(elapsedMs);
+        }
+    }
+
+    void cancel() {
+        if (!launched) {
+            return;
+        }
+
+        final long elapsedNs;
+        synchronized (this) {
+            if (finished || token.isCancelled()) {
+                // 已经执行完了，没有可取消的工作
+                return;
+            }
+            token.cancel();
+            metrics.onCancel();
+            if (runner == null) {
+                // 还未开始执行
+                return;
+            }
+            runner.interrupt();
+            elapsedNs = System.nanoTime() - startNs;
+        }
+        onSample(TimeUnit.NANOSECONDS.toMillis(elapsedNs));
+    }
+}
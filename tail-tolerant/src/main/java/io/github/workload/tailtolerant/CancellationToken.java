@@ -0,0 +1,35 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.annotations.ThreadSafe;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * 协作式的取消令牌：对冲请求的落败者据此尽早放弃，而不是运行到完成浪费下游资源.
+ *
+ * <p>请求任务应该在阻塞调用前后检查令牌，例如：分页读取的每一页之间.</p>
+ */
+@ThreadSafe
+public final class CancellationToken {
+    private volatile boolean cancelled;
+
+    CancellationToken() {
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 已被取消时抛出{@link CancellationException}.
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("hedged attempt lost");
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+}
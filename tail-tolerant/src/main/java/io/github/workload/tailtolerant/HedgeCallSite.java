@@ -0,0 +1,102 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.HyperParameter;
+import io.github.workload.annotations.ThreadSafe;
+import io.github.workload.annotations.VisibleForTesting;
+import lombok.Generated;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调用点粒度的对冲状态：学习到的延迟分位数，以及对冲预算.
+ *
+ * <p>对冲预算是个令牌桶：每个请求存入budgetRatio个令牌，每个对冲请求取出1个令牌，对冲请求因此不会超过请求量的budgetRatio，后端变慢导致大量请求超过分位点时对冲也不会放大过载.</p>
+ */
+@ThreadSafe
+class HedgeCallSite {
+    static final double QUANTILE = HyperParameter.getDouble(HyperParameter.HEDGE_QUANTILE, 0.95d);
+    static final double BUDGET_RATIO = HyperParameter.getDouble(HyperParameter.HEDGE_BUDGET_RATIO, 0.05d);
+
+    // 样本太少时分位数不可信，不对冲
+    static final int MIN_SAMPLES = 20;
+
+    private static final long MILLI_TOKENS = 1000;
+    private static final long BURST_MILLI_TOKENS = 10 * MILLI_TOKENS;
+
+    private static final Map<String, HedgeCallSite> callSites = new ConcurrentHashMap<>();
+
+    @Getter
+    private final String name;
+    private final StreamingQuantile latency = new StreamingQuantile(QUANTILE);
+    private final long depositMilliTokens = Math.round(BUDGET_RATIO * MILLI_TOKENS);
+    private final AtomicLong milliTokens = new AtomicLong(0);
+    @Getter
+    private final HedgeMetrics metrics = new HedgeMetrics();
+
+    private HedgeCallSite(String name) {
+        this.name = name;
+    }
+
+    static HedgeCallSite of(String name) {
+        HedgeCallSite callSite = callSites.get(name);
+        if (callSite == null) {
+            callSite = callSites.computeIfAbsent(name, HedgeCallSite::new);
+        }
+        return callSite;
+    }
+
+    /**
+     * 在多少毫秒后发起对冲请求.
+     *
+     * @return -1 if not enough samples yet
+     */
+    long deferMs() {
+        if (latency.samples() < MIN_SAMPLES) {
+            return -1;
+        }
+        return Math.max(1, (long) Math.ceil(latency.estimate()));
+    }
+
+    /**
+     * 记录原始请求的延迟样本.
+     *
+     * <p>只采样原始请求：对冲请求只在原始请求慢时才发起，只采样胜者则丢掉了慢的原始请求，都会使分位数偏低.</p>
+     * <p>原始请求落败被取消时，以已执行的时长作为样本，它是真实延迟的下界.</p>
+     */
+    void recordLatency(long latencyMs) {
+        latency.add(latencyMs);
+    }
+
+    void recordRequest() {
+        long current;
+        do {
+            current = milliTokens.get();
+            if (current >= BURST_MILLI_TOKENS) {
+                return;
+            }
+        } while (!milliTokens.compareAndSet(current, Math.min(BURST_MILLI_TOKENS, current + depositMilliTokens)));
+    }
+
+    /**
+     * 尝试消耗一次对冲预算.
+     */
+    boolean tryHedge() {
+        long current;
+        do {
+            current = milliTokens.get();
+            if (current < MILLI_TOKENS) {
+                return false;
+            }
+        } while (!milliTokens.compareAndSet(current, current - MILLI_TOKENS));
+        return true;
+    }
+
+    @VisibleForTesting
+    @Generated
+    static void resetForTesting() {
+        callSites.clear();
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.annotations.ThreadSafe;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对冲的成本统计：对冲了多少次，落败者浪费了多少工作.
+ *
+ * <p>理想情况下对冲只额外增加几个百分点的后端负荷：{@link #wasteRatio()}明显偏高说明请求任务没有响应取消.</p>
+ */
+@ThreadSafe
+public class HedgeMetrics {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder wastedRuns = new LongAdder();
+    private final LongAdder wastedMs = new LongAdder();
+    private final LongAdder usefulMs = new LongAdder();
+
+    /**
+     * 请求数量.
+     */
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * 发起的对冲请求数量.
+     */
+    public long hedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * 被取消的落败者数量，包括还没开始执行就被取消的.
+     */
+    public long cancelled() {
+        return cancelled.sum();
+    }
+
+    /**
+     * 已经开始执行的落败者数量.
+     */
+    public long wastedRuns() {
+        return wastedRuns.sum();
+    }
+
+    /**
+     * 落败者累计执行时长.
+     */
+    public long wastedMs() {
+        return wastedMs.sum();
+    }
+
+    /**
+     * 浪费的执行时长占比：wasted / (wasted + useful).
+     */
+    public double wasteRatio() {
+        final long wasted = wastedMs.sum();
+        final long total = wasted + usefulMs.sum();
+        return total == 0 ? 0 : (double) wasted / total;
+    }
+
+    void onRequest() {
+        requests.increment();
+    }
+
+    void onHedge() {
+        hedges.increment();
+    }
+
+    void onCancel() {
+        cancelled.increment();
+    }
+
+    void onUseful(long elapsedMs) {
+        usefulMs.add(elapsedMs);
+    }
+
+    void onWasted(long elapsedMs) {
+        wastedRuns.increment();
+        wastedMs.add(elapsedMs);
+    }
+
+    @Override
+    public String toString() {
+        return "HedgeMetrics(requests=" + requests() + ",hedges=" + hedges() + ",cancelled=" + cancelled()
+                + ",wastedRuns=" + wastedRuns() + ",wastedMs=" + wastedMs() + ")";
+    }
+}
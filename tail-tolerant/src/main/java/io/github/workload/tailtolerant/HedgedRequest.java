@@ -1,6 +1,9 @@
 package io.github.workload.tailtolerant;
 
+import io.github.workload.HashedWheelTimer;
+import io.github.workload.HyperParameter;
 import io.github.workload.NamedThreadFactory;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.concurrent.*;
@@ -13,6 +16,11 @@ import java.util.concurrent.*;
  * <li>增加资源消耗：发送额外的请求会增加服务器的负载，对于已经负载较高的系统，可能会导致性能进一步下降</li>
  * <li>可能的数据不一致：如果对冲请求和原始请求返回的结果存在差异，需要有额外的逻辑来处理这种不一致性</li>
  * </ul>
+ * <ul>两种模式：
+ * <li>固定延迟：{@link #HedgedRequest(long)}</li>
+ * <li>自适应：{@link #HedgedRequest(String)}，按调用点学习延迟的TP95，在该点发起对冲，并受对冲预算约束，see {@link HedgeCallSite}</li>
+ * </ul>
+ * <p>一个请求完成后，另一个请求被主动取消：通过{@link CancellationToken}通知，并中断其执行线程，浪费的工作记录在{@link #metrics()}.</p>
  *
  * @param <R> 请求返回的结果类型
  */
@@ -20,19 +28,25 @@ import java.util.concurrent.*;
 public class HedgedRequest<R> {
 
     /**
-     * 用于在{@link #deferMs}后触发执行对冲请求.
+     * 用于在{@link #deferMs}后触发执行对冲请求，以及{@link ScatterGather}的截止时间.
+     *
+     * <p>它只是用来触发对冲请求，不执行实际的请求任务；绝大多数触发会因原始请求先完成而被取消，时间轮的插入和取消都是O(1)</p>
+     */
+    static final HashedWheelTimer timer = new HashedWheelTimer(HedgedRequest.class.getSimpleName() + "-timer", 1, 512);
+
+    /**
+     * 默认用于立即执行请求任务.
      *
-     * <p>它只是用来触发对冲请求，不执行实际的请求任务，发生频率不高，单线程的就够了</p>
+     * <p>请求任务通常是阻塞IO，因此按需创建线程，但线程数有上限：后端变慢时线程不会无限堆积.</p>
+     * <p>不排队，线程用满时拒绝：原始请求以{@link RejectedExecutionException}失败，对冲请求则不再发起.</p>
      */
-    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    static final ExecutorService defaultExecutor = new ThreadPoolExecutor(0, HyperParameter.getInt(HyperParameter.HEDGE_MAX_THREADS, 256),
+            60L, TimeUnit.SECONDS, new SynchronousQueue<>(), new NamedThreadFactory(HedgedRequest.class.getSimpleName(), true));
 
     /**
-     * 用于立即执行请求任务.
+     * 固定延迟模式的对冲统计.
      */
-    private static final ExecutorService executor = new ThreadPoolExecutor(4, 4,
-            0L, TimeUnit.MILLISECONDS,
-            new LinkedBlockingQueue<>(2),
-            new NamedThreadFactory(HedgedRequest.class.getSimpleName(), true));
+    private static final HedgeMetrics fixedMetrics = new HedgeMetrics();
 
     /**
      * 正常请求在多少时间内未响应才发起对冲请求.
@@ -42,55 +56,170 @@ public class HedgedRequest<R> {
      */
     private final long deferMs;
 
+    /**
+     * 自适应模式的调用点，固定延迟模式下为null.
+     */
+    private final HedgeCallSite callSite;
+
+    private final Executor executor;
+
     public HedgedRequest(long deferMs) {
+        this(deferMs, defaultExecutor);
+    }
+
+    /**
+     * 固定延迟的对冲请求.
+     *
+     * @param deferMs  正常请求在多少时间内未响应才发起对冲请求
+     * @param executor 执行请求任务的线程池，例如{@link #virtualThreadExecutor()}
+     */
+    public HedgedRequest(long deferMs, @NonNull Executor executor) {
         this.deferMs = deferMs;
+        this.callSite = null;
+        this.executor = executor;
+    }
+
+    public HedgedRequest(@NonNull String callSite) {
+        this(callSite, defaultExecutor);
+    }
+
+    /**
+     * 自适应延迟的对冲请求.
+     *
+     * @param callSite 调用点名称，同一调用点的请求共享延迟统计和对冲预算
+     * @param executor 执行请求任务的线程池，例如{@link #virtualThreadExecutor()}
+     */
+    public HedgedRequest(@NonNull String callSite, @NonNull Executor executor) {
+        this.deferMs = -1;
+        this.callSite = HedgeCallSite.of(callSite);
+        this.executor = executor;
     }
 
     /**
      * 发送请求并在需要时执行对冲逻辑.
      *
+     * <p>落败的请求会被中断，请求任务需要能正确处理{@link InterruptedException}.</p>
+     *
      * @param requestTask 代表要执行的请求
      * @return 返回两个请求中首先完成的结果
      */
-    public CompletableFuture<R> call(Callable<R> requestTask) {
-        CompletableFuture<R> originalRequest = new CompletableFuture<>();
-        CompletableFuture<R> hedgedRequest = new CompletableFuture<>();
+    public CompletableFuture<R> call(@NonNull Callable<R> requestTask) {
+        return call(token -> requestTask.call());
+    }
 
-        // 提交原始请求
-        executor.submit(() -> {
-            try {
-                R result = requestTask.call();
-                originalRequest.complete(result);
+    /**
+     * 发送可协作取消的请求并在需要时执行对冲逻辑.
+     *
+     * @param requestTask 代表要执行的请求，落败时它的{@link CancellationToken}被取消，执行线程被中断
+     * @return 返回两个请求中首先完成的结果
+     */
+    public CompletableFuture<R> call(@NonNull CancellableTask<R> requestTask) {
+        final HedgeMetrics metrics = metrics();
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        final long hedgeDeferMs;
+        if (callSite == null) {
+            hedgeDeferMs = deferMs;
+        } else {
+            callSite.recordRequest();
+            hedgeDeferMs = callSite.deferMs();
+        }
+        metrics.onRequest();
 
-                // 取消对冲请求，如果尚未开始
-                hedgedRequest.cancel(false);
-            } catch (Throwable e) {
-                originalRequest.completeExceptionally(e);
+        // 提交原始请求
+        final Attempt<R> original = new Attempt<R>(requestTask, result, executor, metrics) {
+            @Override
+            void onSample(long elapsedMs) {
+                if (callSite != null) {
+                    callSite.recordLatency(elapsedMs);
+                }
             }
-        });
+        };
+        try {
+            original.launch();
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        if (hedgeDeferMs < 0) {
+            // 自适应模式下还没有足够的延迟样本
+            return result;
+        }
 
         // 延迟提交对冲请求
-        scheduler.schedule(() -> {
-            if (!originalRequest.isDone()) {
-                // 原始请求尚未完成
-                log.warn("Original slow, hedged after {}ms", deferMs);
-                executor.submit(() -> {
-                    try {
-                        R result = requestTask.call();
-                        hedgedRequest.complete(result);
-                    } catch (Throwable e) {
-                        hedgedRequest.completeExceptionally(e);
-                    }
-                });
+        final Attempt<R> hedged = new Attempt<>(requestTask, result, executor, metrics);
+        final HashedWheelTimer.Timeout trigger = timer.newTimeout(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            if (callSite != null && !callSite.tryHedge()) {
+                log.debug("[{}] hedge budget exhausted", callSite.getName());
+                return;
+            }
+
+            // 原始请求尚未完成
+            log.warn("Original slow, hedged after {}ms", hedgeDeferMs);
+            metrics.onHedge();
+            try {
+                hedged.launch();
+            } catch (RejectedExecutionException e) {
+                log.warn("hedged request rejected: {}", e.getMessage());
             }
-        }, deferMs, TimeUnit.MILLISECONDS);
+        }, hedgeDeferMs, TimeUnit.MILLISECONDS);
+        result.whenComplete((r, e) -> {
+            trigger.cancel();
+            // 取消落败者
+            original.cancel();
+            hedged.cancel();
+        });
+        return result;
+    }
 
-        return originalRequest.applyToEither(hedgedRequest, result -> result);
+    /**
+     * 对冲统计：自适应模式下是该调用点的统计，固定延迟模式下是所有固定延迟对冲请求的统计.
+     */
+    public HedgeMetrics metrics() {
+        return callSite == null ? fixedMetrics : callSite.getMetrics();
+    }
+
+    /**
+     * 每个请求一个虚拟线程的执行器(JDK 21+)，低版本JDK下退化为默认线程池.
+     */
+    public static Executor virtualThreadExecutor() {
+        return VirtualThreads.EXECUTOR;
     }
 
+    /**
+     * 关闭默认线程池.
+     *
+     * <p>定时器被其他组件共享，不随之停止.</p>
+     */
     public static void shutdown() {
-        executor.shutdown();
-        scheduler.shutdown();
+        defaultExecutor.shutdown();
+    }
+
+    /**
+     * 接收{@link CancellationToken}的请求任务.
+     *
+     * @param <R> 请求返回的结果类型
+     */
+    @FunctionalInterface
+    public interface CancellableTask<R> {
+        R call(CancellationToken token) throws Exception;
+    }
+
+    private static class VirtualThreads {
+        private static final Executor EXECUTOR = create();
+
+        private static Executor create() {
+            try {
+                // 编译目标是Java 8，只能反射
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.info("virtual threads unavailable, fallback to platform threads");
+                return defaultExecutor;
+            }
+        }
     }
 
 }
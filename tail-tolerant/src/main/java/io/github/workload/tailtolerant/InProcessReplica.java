@@ -0,0 +1,107 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.NamedThreadFactory;
+import io.github.workload.annotations.VisibleForTesting;
+import lombok.Generated;
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 进程内的副本模拟器：固定数量的工作线程从FIFO队列里取请求执行，副本之间通过进程内调用传递取消消息.
+ *
+ * <p>用于在本地验证{@link TiedRequest}对排队延迟和执行成本的影响，无需真实的集群.</p>
+ *
+ * @param <Q> 请求类型
+ * @param <R> 响应类型
+ */
+public class InProcessReplica<Q, R> implements TiedReplica<Q, R> {
+    private static final Map<String, InProcessReplica<?, ?>> replicas = new ConcurrentHashMap<>();
+
+    private static final TiedCancellation loopback = (replicaId, requestId) -> {
+        InProcessReplica<?, ?> replica = replicas.get(replicaId);
+        if (replica != null) {
+            replica.hook.onCancel(requestId);
+        }
+    };
+
+    private final String id;
+    private final Function<Q, R> handler;
+    private final ExecutorService workers;
+    private final TiedQueueHook hook;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param id      副本标识
+     * @param workers 工作线程数量
+     * @param handler 请求处理逻辑
+     */
+    public InProcessReplica(@NonNull String id, int workers, @NonNull Function<Q, R> handler) {
+        this.id = id;
+        this.handler = handler;
+        this.workers = Executors.newFixedThreadPool(workers, new NamedThreadFactory("replica-" + id));
+        this.hook = new TiedQueueHook(id, loopback);
+        if (replicas.putIfAbsent(id, this) != null) {
+            this.workers.shutdown();
+            throw new IllegalArgumentException("duplicated replica: " + id);
+        }
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public CompletableFuture<R> submit(@NonNull Tie tie, @NonNull Q request) {
+        final CompletableFuture<R> response = new CompletableFuture<>();
+        hook.onEnqueue(tie);
+        workers.execute(() -> {
+            if (!hook.tryStart(tie)) {
+                dropped.increment();
+                response.cancel(false);
+                return;
+            }
+
+            executed.increment();
+            try {
+                response.complete(handler.apply(request));
+            } catch (Throwable e) {
+                response.completeExceptionally(e);
+            }
+        });
+        return response;
+    }
+
+    /**
+     * 真正执行了多少请求.
+     */
+    public long executed() {
+        return executed.sum();
+    }
+
+    /**
+     * 因另一个副本已经执行而丢弃了多少请求.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public void close() {
+        replicas.remove(id, this);
+        workers.shutdown();
+    }
+
+    @VisibleForTesting
+    @Generated
+    static void resetForTesting() {
+        replicas.values().forEach(InProcessReplica::close);
+    }
+}
@@ -0,0 +1,319 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.HashedWheelTimer;
+import io.github.workload.NamedThreadFactory;
+import io.github.workload.tailtolerant.HedgedRequest.CancellableTask;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 扇出的分散-聚合：并行调用N个后端(例如：分片)，在全局截止时间内聚合结果.
+ *
+ * <ul>
+ * <li>截止时间到达时返回部分结果及完整度，仍在执行的叶子请求被取消，而不是被最慢的分片拖住</li>
+ * <li>可选的单个叶子截止时间：从叶子发出起计时，超时的叶子按失败处理并被取消，其他叶子不受影响</li>
+ * <li>可选地只对冲最慢的k%：n - ceil(n*k)个叶子完成后，对仍未完成的叶子发起对冲请求，最多对冲ceil(n*k)个叶子；
+ * 叶子很少时(例如n=1)该阈值为0，原始请求发出后立即对冲所有叶子</li>
+ * </ul>
+ * <p>不设置叶子截止时间时，每次扇出只需要一个截止时间定时器，与叶子数量无关；定时器是与{@link HedgedRequest}共享的时间轮.</p>
+ * <p>截止时间到达时，在时间轮线程上取结果快照并取消叶子，聚合结果则在独立的{@link #completionExecutor}上完成：
+ * 不会因执行叶子的线程池排队而推迟，调用方的后续处理也不会拖慢时间轮上的其他对冲触发和截止时间.</p>
+ *
+ * @param <R> 叶子请求返回的结果类型
+ */
+@Slf4j
+public class ScatterGather<R> {
+
+    /**
+     * 在截止时间到达时完成聚合结果，调用方的后续处理在这里执行.
+     *
+     * <p>与执行叶子请求的线程池隔离：它只完成future，线程按需创建且有上限，用满时退化为在时间轮线程上完成.</p>
+     */
+    static final ExecutorService completionExecutor = new ThreadPoolExecutor(0, 64, 60L, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), new NamedThreadFactory(ScatterGather.class.getSimpleName() + "-completion", true));
+
+    private final long deadlineMs;
+    private final long leafDeadlineMs;
+    private final double hedgeSlowestRatio;
+    private final Executor executor;
+
+    @Getter
+    private final HedgeMetrics metrics = new HedgeMetrics();
+
+    public ScatterGather(long deadlineMs) {
+        this(deadlineMs, 0, HedgedRequest.defaultExecutor);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param deadlineMs        全局截止时间
+     * @param hedgeSlowestRatio 对最慢的多少比例的叶子发起对冲：[0, 1)，0表示不对冲
+     * @param executor          执行叶子请求的线程池
+     */
+    public ScatterGather(long deadlineMs, double hedgeSlowestRatio, @NonNull Executor executor) {
+        this(deadlineMs, 0, hedgeSlowestRatio, executor);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param deadlineMs        全局截止时间
+     * @param leafDeadlineMs    单个叶子的截止时间，从叶子发出起计时，0表示只有全局截止时间
+     * @param hedgeSlowestRatio 对最慢的多少比例的叶子发起对冲：[0, 1)，0表示不对冲
+     * @param executor          执行叶子请求的线程池
+     */
+    public ScatterGather(long deadlineMs, long leafDeadlineMs, double hedgeSlowestRatio, @NonNull Executor executor) {
+        if (deadlineMs <= 0) {
+            throw new IllegalArgumentException("deadlineMs must be positive");
+        }
+        if (leafDeadlineMs < 0) {
+            throw new IllegalArgumentException("leafDeadlineMs cannot be negative");
+        }
+        if (hedgeSlowestRatio < 0 || hedgeSlowestRatio >= 1) {
+            throw new IllegalArgumentException("hedgeSlowestRatio must be in [0, 1)");
+        }
+        this.deadlineMs = deadlineMs;
+        // 不短于全局截止时间的叶子截止时间没有意义，省掉定时器
+        this.leafDeadlineMs = leafDeadlineMs < deadlineMs ? leafDeadlineMs : 0;
+        this.hedgeSlowestRatio = hedgeSlowestRatio;
+        this.executor = executor;
+    }
+
+    /**
+     * 并行调用所有叶子请求.
+     *
+     * @param leaves 叶子请求，它们的{@link CancellationToken}在截止时间或落败时被取消；超过叶子截止时间的按{@link TimeoutException}失败
+     * @return 截止时间前聚合的结果，不会异常完成
+     */
+    public CompletableFuture<Gathered<R>> scatter(@NonNull List<? extends CancellableTask<R>> leaves) {
+        Gather gather = new Gather(leaves);
+        gather.start();
+        return gather.gathered;
+    }
+
+    /**
+     * 聚合结果.
+     *
+     * @param <R> 叶子请求返回的结果类型
+     */
+    @Getter
+    public static class Gathered<R> {
+        /**
+         * 按叶子顺序排列的结果，失败或未完成的叶子为null.
+         */
+        private final List<R> values;
+
+        /**
+         * 成功的叶子数量.
+         */
+        private final int succeeded;
+
+        /**
+         * 失败的叶子数量.
+         */
+        private final int failed;
+
+        Gathered(List<R> values, int succeeded, int failed) {
+            this.values = values;
+            this.succeeded = succeeded;
+            this.failed = failed;
+        }
+
+        /**
+         * 完整度：成功的叶子比例，[0, 1].
+         */
+        public double completeness() {
+            return values.isEmpty() ? 1 : (double) succeeded / values.size();
+        }
+
+        public boolean isComplete() {
+            return succeeded == values.size();
+        }
+
+        @Override
+        public String toString() {
+            return "Gathered(" + succeeded + "/" + values.size() + ",failed=" + failed + ")";
+        }
+    }
+
+    private final class Gather {
+        private static final int PENDING = 0;
+        private static final int SUCCEEDED = 1;
+        private static final int FAILED = 2;
+
+        private final List<? extends CancellableTask<R>> leaves;
+        private final int n;
+        private final AtomicReferenceArray<R> values;
+        private final AtomicIntegerArray states;
+        private final AtomicInteger done = new AtomicInteger();
+        private final List<CompletableFuture<R>> leafResults;
+        private final AtomicReferenceArray<Attempt<R>> originals;
+        private final AtomicReferenceArray<Attempt<R>> hedges;
+        private final int hedgeAfter;
+        private final AtomicBoolean hedged = new AtomicBoolean();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final CompletableFuture<Gathered<R>> gathered = new CompletableFuture<>();
+
+        Gather(List<? extends CancellableTask<R>> leaves) {
+            this.leaves = leaves;
+            this.n = leaves.size();
+            this.values = new AtomicReferenceArray<>(n);
+            this.states = new AtomicIntegerArray(n);
+            this.originals = new AtomicReferenceArray<>(n);
+            this.hedges = new AtomicReferenceArray<>(n);
+            this.leafResults = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                leafResults.add(new CompletableFuture<>());
+            }
+            // 完成了多少个叶子后对冲剩余的
+            this.hedgeAfter = hedgeSlowestRatio > 0 ? n - (int) Math.ceil(n * hedgeSlowestRatio) : -1;
+        }
+
+        void start() {
+            if (n == 0) {
+                finish(false);
+                return;
+            }
+
+            for (int i = 0; i < n; i++) {
+                final int leaf = i;
+                metrics.onRequest();
+                leafResults.get(i).whenComplete((value, e) -> onLeafDone(leaf, value, e));
+            }
+            final HashedWheelTimer.Timeout deadline = HedgedRequest.timer.newTimeout(this::onDeadline, deadlineMs, TimeUnit.MILLISECONDS);
+            gathered.whenComplete((r, e) -> deadline.cancel());
+            for (int i = 0; i < n && !finished.get(); i++) {
+                launch(i, originals);
+                if (leafDeadlineMs > 0) {
+                    final int leaf = i;
+                    final HashedWheelTimer.Timeout leafDeadline = HedgedRequest.timer.newTimeout(() -> onLeafDeadline(leaf), leafDeadlineMs, TimeUnit.MILLISECONDS);
+                    leafResults.get(i).whenComplete((r, e) -> leafDeadline.cancel());
+                }
+            }
+            if (hedgeAfter == 0 && hedged.compareAndSet(false, true)) {
+                // 完成数量从1开始计数，阈值为0时不会在onLeafDone里触发
+                hedgeStragglers();
+            }
+        }
+
+        private void launch(int leaf, AtomicReferenceArray<Attempt<R>> slots) {
+            Attempt<R> attempt = new Attempt<>(leaves.get(leaf), leafResults.get(leaf), executor, metrics);
+            slots.set(leaf, attempt);
+            try {
+                attempt.launch();
+            } catch (RejectedExecutionException e) {
+                leafResults.get(leaf).completeExceptionally(e);
+            }
+        }
+
+        private void onLeafDone(int leaf, R value, Throwable e) {
+            if (e == null) {
+                values.set(leaf, value);
+                states.set(leaf, SUCCEEDED);
+            } else {
+                states.set(leaf, FAILED);
+            }
+
+            // 取消该叶子的落败者
+            cancel(leaf);
+            final int completed = done.incrementAndGet();
+            if (completed == n) {
+                finish(false);
+            } else if (completed == hedgeAfter && hedged.compareAndSet(false, true)) {
+                hedgeStragglers();
+            }
+        }
+
+        private void hedgeStragglers() {
+            for (int i = 0; i < n && !finished.get(); i++) {
+                if (!leafResults.get(i).isDone()) {
+                    log.debug("hedge straggler leaf:{}", i);
+                    metrics.onHedge();
+                    launch(i, hedges);
+                }
+            }
+        }
+
+        // 在时间轮线程上执行
+        private void onDeadline() {
+            finish(true);
+        }
+
+        // 在时间轮线程上执行：叶子失败会触发对冲和聚合，不在这里做
+        private void onLeafDeadline(int leaf) {
+            completeAsync(() -> leafResults.get(leaf).completeExceptionally(new TimeoutException("leaf deadline " + leafDeadlineMs + "ms reached")));
+        }
+
+        /**
+         * 取结果快照并取消仍在执行的叶子请求，然后完成聚合结果.
+         *
+         * @param onTimer 是否在时间轮线程上：是则聚合结果交给{@link #completionExecutor}完成
+         */
+        private void finish(boolean onTimer) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+
+            final List<R> snapshot = new ArrayList<>(n);
+            int succeeded = 0;
+            int failed = 0;
+            for (int i = 0; i < n; i++) {
+                final int state = states.get(i);
+                if (state == SUCCEEDED) {
+                    succeeded++;
+                    snapshot.add(values.get(i));
+                } else {
+                    if (state == FAILED) {
+                        failed++;
+                    }
+                    snapshot.add(null);
+                }
+            }
+            if (succeeded < n) {
+                log.debug("deadline {}ms reached, gathered {}/{}", deadlineMs, succeeded, n);
+            }
+            // 取消所有仍在执行的叶子请求
+            for (int i = 0; i < n; i++) {
+                cancel(i);
+            }
+
+            final Gathered<R> result = new Gathered<>(Collections.unmodifiableList(snapshot), succeeded, failed);
+            if (onTimer) {
+                completeAsync(() -> gathered.complete(result));
+            } else {
+                gathered.complete(result);
+            }
+        }
+
+        private void completeAsync(Runnable completion) {
+            try {
+                completionExecutor.execute(completion);
+            } catch (RejectedExecutionException e) {
+                log.warn("completion rejected, complete on timer thread: {}", e.getMessage());
+                completion.run();
+            }
+        }
+
+        private void cancel(int leaf) {
+            Attempt<R> original = originals.get(leaf);
+            if (original != null) {
+                original.cancel();
+            }
+            Attempt<R> hedge = hedges.get(leaf);
+            if (hedge != null) {
+                hedge.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.annotations.ThreadSafe;
+
+/**
+ * 流式的分位数估计：O(1)时间，O(1)空间，不保存样本.
+ *
+ * <p>随机梯度下降：样本大于估计值时估计值上调{@code step * q}，否则下调{@code step * (1 - q)}，稳定时恰好有q比例的样本不大于估计值.</p>
+ * <p>步长与估计值成正比，因此对不同量级的延迟收敛速度一致，并能跟踪延迟分布的漂移.</p>
+ * <p>并发更新时可能丢失个别样本，这对估计结果没有实质影响，因此无锁.</p>
+ */
+@ThreadSafe
+class StreamingQuantile {
+    private static final double STEP = 0.05;
+
+    private final double quantile;
+
+    private volatile double estimate;
+    private volatile long samples;
+
+    /**
+     * Constructor.
+     *
+     * @param quantile 分位点：(0, 1)，例如0.95表示TP95
+     */
+    StreamingQuantile(double quantile) {
+        if (quantile <= 0 || quantile >= 1) {
+            throw new IllegalArgumentException("quantile must be in (0, 1)");
+        }
+        this.quantile = quantile;
+    }
+
+    void add(double value) {
+        final double current = estimate;
+        if (samples++ == 0) {
+            estimate = value;
+            return;
+        }
+
+        // 估计值为0时也要能向上收敛
+        final double step = STEP * Math.max(current, 1d);
+        if (value > current) {
+            estimate = current + step * quantile;
+        } else if (value < current) {
+            estimate = Math.max(0, current - step * (1 - quantile));
+        }
+    }
+
+    double estimate() {
+        return estimate;
+    }
+
+    long samples() {
+        return samples;
+    }
+}
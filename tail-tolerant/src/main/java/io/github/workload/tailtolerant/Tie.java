@@ -0,0 +1,29 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.annotations.Immutable;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * 绑定请求的身份：请求标识以及另一个副本的标识，随请求一起发送到副本.
+ */
+@Getter
+@Immutable
+public final class Tie {
+    private final long requestId;
+
+    /**
+     * 同一请求被发送到的另一个副本.
+     */
+    private final String peerReplicaId;
+
+    public Tie(long requestId, @NonNull String peerReplicaId) {
+        this.requestId = requestId;
+        this.peerReplicaId = peerReplicaId;
+    }
+
+    @Override
+    public String toString() {
+        return "Tie(" + requestId + "->" + peerReplicaId + ")";
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.annotations.ThreadSafe;
+import lombok.NonNull;
+
+/**
+ * 跨副本取消的SPI：副本开始执行绑定请求时，通知另一个副本丢弃它，传输方式可插拔：RPC/UDP/etc.
+ *
+ * <p>取消消息是尽力而为的：丢失或迟到时两个副本都执行该请求，只是浪费而不会出错.</p>
+ *
+ * @see InProcessReplica
+ */
+@ThreadSafe
+@FunctionalInterface
+public interface TiedCancellation {
+
+    /**
+     * 通知某个副本丢弃尚未执行的请求.
+     *
+     * @param replicaId 要通知的副本
+     * @param requestId 请求标识，see {@link Tie#getRequestId()}
+     */
+    void cancel(@NonNull String replicaId, long requestId);
+}
@@ -0,0 +1,71 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.annotations.ThreadSafe;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 副本侧的请求队列钩子：在入队、出队以及收到取消消息时调用.
+ *
+ * <p>只跟踪排队中的绑定请求，内存占用受队列长度约束：早于入队到达的取消消息被忽略.</p>
+ * <pre>
+ * {@code
+ *
+ * enqueue:  hook.onEnqueue(tie)
+ * dequeue:  if (hook.tryStart(tie)) execute(request) else drop(request)
+ * cancel:   hook.onCancel(requestId)
+ * }
+ * </pre>
+ */
+@Slf4j
+@ThreadSafe
+public class TiedQueueHook {
+    private final String replicaId;
+    private final TiedCancellation cancellation;
+
+    private final Map<Long /* requestId */, Tie> pending = new ConcurrentHashMap<>();
+
+    public TiedQueueHook(@NonNull String replicaId, @NonNull TiedCancellation cancellation) {
+        this.replicaId = replicaId;
+        this.cancellation = cancellation;
+    }
+
+    public void onEnqueue(@NonNull Tie tie) {
+        pending.put(tie.getRequestId(), tie);
+    }
+
+    /**
+     * 收到另一个副本的取消消息.
+     */
+    public void onCancel(long requestId) {
+        if (pending.remove(requestId) != null) {
+            log.debug("[{}] request:{} cancelled by peer", replicaId, requestId);
+        }
+    }
+
+    /**
+     * 请求出队时调用：决定执行还是丢弃.
+     *
+     * @return true if the request should be executed, and its peer has been told to drop it
+     */
+    public boolean tryStart(@NonNull Tie tie) {
+        if (pending.remove(tie.getRequestId()) == null) {
+            // 另一个副本已经开始执行
+            return false;
+        }
+
+        try {
+            cancellation.cancel(tie.getPeerReplicaId(), tie.getRequestId());
+        } catch (Exception e) {
+            log.warn("[{}] cancel {} failed: {}", replicaId, tie, e.getMessage());
+        }
+        return true;
+    }
+
+    int pendingSize() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.annotations.ThreadSafe;
+import lombok.NonNull;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 客户端视角的副本，{@link TiedRequest}通过它把请求发送到某个副本，传输方式由实现决定.
+ *
+ * @param <Q> 请求类型
+ * @param <R> 响应类型
+ */
+@ThreadSafe
+public interface TiedReplica<Q, R> {
+
+    /**
+     * 副本在集群内的唯一标识.
+     */
+    String id();
+
+    /**
+     * 发送绑定了另一个副本的请求.
+     *
+     * <p>副本在请求出队时通过{@link TiedQueueHook#tryStart(Tie)}决定执行还是丢弃.</p>
+     *
+     * @param tie     请求的绑定信息，需要随请求一起传输到副本
+     * @param request 请求
+     * @return 响应，请求在副本上被丢弃时以{@link java.util.concurrent.CancellationException}完成：否则另一个副本执行失败时调用者无法得知结果
+     */
+    CompletableFuture<R> submit(@NonNull Tie tie, @NonNull Q request);
+}
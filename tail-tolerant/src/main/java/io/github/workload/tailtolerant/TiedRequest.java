@@ -0,0 +1,85 @@
+package io.github.workload.tailtolerant;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 绑定请求(tied requests)，来自The Tail at Scale.
+ *
+ * <p>与{@link HedgedRequest}延迟发送副本请求不同，绑定请求立即发送到两个副本，每个请求都携带另一个副本的标识.</p>
+ * <p>副本在请求出队开始执行时，通知另一个副本丢弃它：排队延迟由两个副本中较短的决定，而正常情况下只有一个副本真正执行，不需要付出2倍的CPU.</p>
+ * <p>两个副本可能恰好同时出队，都执行了该请求，先完成的结果胜出.</p>
+ * <p>一个副本失败时仍然等待另一个副本：两个副本都失败(发送失败，执行失败，或被丢弃)才以失败完成，优先返回非丢弃的异常.</p>
+ *
+ * @param <Q> 请求类型
+ * @param <R> 响应类型
+ * @see TiedQueueHook
+ */
+@Slf4j
+public class TiedRequest<Q, R> {
+
+    /**
+     * 发送请求到两个副本.
+     *
+     * @param request 请求
+     * @param first   副本
+     * @param second  另一个副本
+     * @return 返回先成功的结果，两个副本都失败时异常完成
+     */
+    public CompletableFuture<R> call(@NonNull Q request, @NonNull TiedReplica<Q, R> first, @NonNull TiedReplica<Q, R> second) {
+        if (first.id().equals(second.id())) {
+            throw new IllegalArgumentException("tied replicas must be different: " + first.id());
+        }
+
+        // 随机的请求标识，在副本上冲突的概率可以忽略
+        final long requestId = ThreadLocalRandom.current().nextLong();
+        final Race<R> race = new Race<>();
+        send(first, new Tie(requestId, second.id()), request, race);
+        send(second, new Tie(requestId, first.id()), request, race);
+        return race.result;
+    }
+
+    private void send(TiedReplica<Q, R> replica, Tie tie, Q request, Race<R> race) {
+        final CompletableFuture<R> response;
+        try {
+            response = replica.submit(tie, request);
+        } catch (Exception e) {
+            // 另一个副本仍然可以完成该请求
+            log.warn("send {} to {} failed: {}", tie, replica.id(), e.getMessage());
+            race.onFailure(e);
+            return;
+        }
+        response.whenComplete((value, e) -> {
+            if (e == null) {
+                race.result.complete(value);
+            } else {
+                race.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * 两个副本竞争完成同一个结果.
+     */
+    private static class Race<R> {
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        void onFailure(Throwable e) {
+            final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            // 被丢弃的副本不是失败原因
+            failure.accumulateAndGet(cause, (prev, cur) -> prev == null || prev instanceof CancellationException ? cur : prev);
+            if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(failure.get());
+            }
+        }
+    }
+}
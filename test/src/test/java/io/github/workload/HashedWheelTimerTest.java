@@ -0,0 +1,106 @@
+package io.github.workload;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedWheelTimerTest extends BaseTest {
+    private final HashedWheelTimer timer = new HashedWheelTimer("test", 1, 8);
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void expireInOrder() throws InterruptedException {
+        final List<Integer> fired = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        final long startNs = System.nanoTime();
+        // 超过时间轮的一圈
+        timer.newTimeout(() -> {
+            fired.add(60);
+            latch.countDown();
+        }, 60, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> {
+            fired.add(20);
+            latch.countDown();
+        }, 20, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> {
+            fired.add(0);
+            latch.countDown();
+        }, 0, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs) >= 60);
+        assertEquals(0, fired.get(0));
+        assertEquals(20, fired.get(1));
+        assertEquals(60, fired.get(2));
+        assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    void cancel() throws InterruptedException {
+        final AtomicInteger fired = new AtomicInteger();
+        HashedWheelTimer.Timeout t1 = timer.newTimeout(fired::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        HashedWheelTimer.Timeout t2 = timer.newTimeout(fired::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        assertEquals(2, timer.pendingTimeouts());
+        TimeUnit.MILLISECONDS.sleep(5);
+        assertTrue(t1.cancel());
+        assertFalse(t1.cancel());
+        assertTrue(t1.isCancelled());
+        assertEquals(1, timer.pendingTimeouts());
+
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertEquals(1, fired.get());
+        assertTrue(t2.isExpired());
+        assertFalse(t2.cancel());
+        assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    void manyTimeouts() throws InterruptedException {
+        final int N = 100_000;
+        final AtomicInteger fired = new AtomicInteger();
+        int cancelled = 0;
+        for (int i = 0; i < N; i++) {
+            HashedWheelTimer.Timeout timeout = timer.newTimeout(fired::incrementAndGet, i % 20, TimeUnit.MILLISECONDS);
+            // 对冲触发大多会被取消：已经触发的则取消失败
+            if (i % 2 == 0 && timeout.cancel()) {
+                cancelled++;
+            }
+        }
+        final long deadline = System.currentTimeMillis() + 2000;
+        while (fired.get() < N - cancelled && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(N - cancelled, fired.get());
+        assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    void failedTaskNotKillWorker() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        timer.newTimeout(() -> {
+            throw new IllegalStateException("oops");
+        }, 1, TimeUnit.MILLISECONDS);
+        timer.newTimeout(latch::countDown, 5, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void stop() {
+        HashedWheelTimer stopped = new HashedWheelTimer("stopped", 10, 1);
+        stopped.stop();
+        assertThrows(IllegalStateException.class, () -> stopped.newTimeout(() -> {
+        }, 1, TimeUnit.MILLISECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer("x", 0, 8));
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer("x", 1, 0));
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.workload.boost;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinPackerTest {
+
+    @Test
+    void basic() {
+        for (BinPacker.Strategy strategy : BinPacker.Strategy.values()) {
+            BinPacker<Double> packer = new BinPacker<>(10, Double::doubleValue, strategy);
+            assertTrue(packer.pack(Collections.emptyList()).isEmpty());
+
+            // next-fit需要3个箱子：6|4+5|5
+            List<BinPacker.Bin<Double>> bins = packer.pack(Arrays.asList(6d, 4d, 5d, 5d));
+            assertEquals(2, bins.size(), strategy.name());
+            assertEquals(10, bins.get(0).getWeight(), 1e-9);
+            assertEquals(10, bins.get(1).getWeight(), 1e-9);
+
+            // 超限的独占箱子
+            bins = packer.pack(Arrays.asList(3d, 12d, 7d));
+            assertEquals(2, bins.size());
+            assertEquals(Collections.singletonList(12d), bins.get(0).getItems());
+            assertEquals(10, bins.get(1).getWeight(), 1e-9);
+        }
+    }
+
+    @Test
+    void bestFitDiffersFromFirstFit() {
+        // 降序后：7剩3，5剩5，4装入5剩1；最后的1两种策略选择不同的箱子
+        List<Double> items = Arrays.asList(4d, 7d, 1d, 5d);
+        List<BinPacker.Bin<Double>> ff = new BinPacker<>(10, Double::doubleValue, BinPacker.Strategy.FIRST_FIT_DECREASING).pack(items);
+        List<BinPacker.Bin<Double>> bf = new BinPacker<>(10, Double::doubleValue, BinPacker.Strategy.BEST_FIT_DECREASING).pack(items);
+        // first-fit：装入第一个放得下的箱子
+        assertEquals(Arrays.asList(7d, 1d), ff.get(0).getItems());
+        assertEquals(Arrays.asList(5d, 4d), ff.get(1).getItems());
+        // best-fit：装入剩余最少的箱子
+        assertEquals(Collections.singletonList(7d), bf.get(0).getItems());
+        assertEquals(Arrays.asList(5d, 4d, 1d), bf.get(1).getItems());
+    }
+
+    @Test
+    void twoDimensions() {
+        // {weight, volume}
+        List<double[]> items = Arrays.asList(new double[]{7, 1}, new double[]{1, 7}, new double[]{2, 2});
+        for (BinPacker.Strategy strategy : BinPacker.Strategy.values()) {
+            BinPacker<double[]> packer = new BinPacker<>(10, 10, item -> item[0], item -> item[1], strategy);
+            List<BinPacker.Bin<double[]>> bins = packer.pack(items);
+            assertEquals(1, bins.size());
+            assertEquals(10, bins.get(0).getWeight(), 1e-9);
+            assertEquals(10, bins.get(0).getVolume(), 1e-9);
+        }
+
+        // 重量都放得下，体积不行
+        BinPacker<double[]> packer = new BinPacker<>(100, 10, item -> item[0], item -> item[1], BinPacker.Strategy.FIRST_FIT_DECREASING);
+        List<BinPacker.Bin<double[]>> bins = packer.pack(Arrays.asList(new double[]{1, 6}, new double[]{1, 6}, new double[]{1, 4}));
+        assertEquals(2, bins.size());
+        assertEquals(10, bins.get(0).getVolume(), 1e-9);
+    }
+
+    @Test
+    void contract() {
+        Random random = new Random(11);
+        List<double[]> items = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            items.add(new double[]{random.nextDouble() * 40, random.nextDouble() * 4, i});
+        }
+        for (BinPacker.Strategy strategy : BinPacker.Strategy.values()) {
+            BinPacker<double[]> packer = new BinPacker<>(100, 10, item -> item[0], item -> item[1], strategy);
+            List<BinPacker.Bin<double[]>> bins = packer.pack(items);
+            Set<Double> seen = new HashSet<>();
+            double totalWeight = 0;
+            for (BinPacker.Bin<double[]> bin : bins) {
+                assertFalse(bin.getItems().isEmpty());
+                assertTrue(bin.getWeight() <= 100 + 1e-6);
+                assertTrue(bin.getVolume() <= 10 + 1e-6);
+                for (double[] item : bin.getItems()) {
+                    assertTrue(seen.add(item[2]));
+                }
+                totalWeight += bin.getWeight();
+            }
+            assertEquals(items.size(), seen.size());
+            // 降序装箱远优于下界的2倍
+            assertTrue(bins.size() < 2 * Math.ceil(totalWeight / 100) + 1, strategy.name());
+        }
+    }
+
+    @Test
+    void packGrouped() {
+        BinPacker<String> packer = new BinPacker<>(10, item -> Double.parseDouble(item.substring(1)), BinPacker.Strategy.FIRST_FIT_DECREASING);
+        Map<Character, List<BinPacker.Bin<String>>> grouped = packer.packGrouped(Arrays.asList("b6", "a5", "b4", "a5", "a1"), item -> item.charAt(0));
+        // 按key首次出现的顺序
+        assertEquals(Arrays.asList('b', 'a'), new ArrayList<>(grouped.keySet()));
+        assertEquals(1, grouped.get('b').size());
+        assertEquals(2, grouped.get('a').size());
+        assertEquals(Arrays.asList("a5", "a5"), grouped.get('a').get(0).getItems());
+    }
+
+    @Test
+    void invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new BinPacker<Double>(0, Double::doubleValue, BinPacker.Strategy.FIRST_FIT_DECREASING));
+        assertThrows(IllegalArgumentException.class, () -> new BinPacker<Double>(Double.NaN, Double::doubleValue, BinPacker.Strategy.FIRST_FIT_DECREASING));
+        BinPacker<Double> packer = new BinPacker<>(10, Double::doubleValue, BinPacker.Strategy.BEST_FIT_DECREASING);
+        assertThrows(IllegalArgumentException.class, () -> packer.pack(Arrays.asList(1d, -1d)));
+    }
+}
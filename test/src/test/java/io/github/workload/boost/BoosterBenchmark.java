@@ -0,0 +1,84 @@
+package io.github.workload.boost;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * fork-join的CPU并行与顺序执行的对比.
+ */
+@BenchmarkMode(value = Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@State(Scope.Benchmark)
+public class BoosterBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int size;
+
+    private double[] doubles;
+    private double[] doublesOut;
+    private Double[] boxed;
+    private Double[] boxedOut;
+
+    @Test
+    @Disabled
+    void main() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BoosterBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.TEXT)
+                .result("Booster.bench")
+                .build();
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        doubles = new Random(size).doubles(size).toArray();
+        doublesOut = new double[size];
+        boxed = new Double[size];
+        for (int i = 0; i < size; i++) {
+            boxed[i] = doubles[i];
+        }
+        boxedOut = new Double[size];
+    }
+
+    private static double work(double x) {
+        return Math.sqrt(x) * Math.log1p(x);
+    }
+
+    @Benchmark
+    public double[] sequential() {
+        for (int i = 0; i < doubles.length; i++) {
+            doublesOut[i] = work(doubles[i]);
+        }
+        return doublesOut;
+    }
+
+    @Benchmark
+    public double[] primitiveBoost() {
+        return Booster.boost(doubles, doublesOut, BoosterBenchmark::work);
+    }
+
+    @Benchmark
+    public Double[] boxedSequential() {
+        for (int i = 0; i < boxed.length; i++) {
+            boxedOut[i] = work(boxed[i]);
+        }
+        return boxedOut;
+    }
+
+    @Benchmark
+    public Double[] boxedBoost() {
+        return Booster.boost(boxed, boxedOut, BoosterBenchmark::work);
+    }
+}
@@ -5,6 +5,11 @@ import org.junit.jupiter.api.Test;
 
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class BoosterTest {
 
@@ -21,6 +26,60 @@ class BoosterTest {
         System.out.println("Number of Consolidated Shipments: " + consolidatedShipments.size());
     }
 
+    @Test
+    void cpuParallel() {
+        Integer[] input = new Integer[100_000];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = i;
+        }
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Long[] output = Booster.boost(input, new Long[input.length], x -> {
+            threads.add(Thread.currentThread().getName());
+            return (long) x * x;
+        }, pool, 1000);
+        for (int i = 0; i < input.length; i++) {
+            assertEquals((long) i * i, output[i]);
+        }
+        assertTrue(threads.size() > 1, "" + threads);
+
+        // 不超过粒度时在调用者线程顺序执行
+        threads.clear();
+        Booster.boost(new Integer[]{1, 2, 3}, new Long[3], x -> {
+            threads.add(Thread.currentThread().getName());
+            return (long) x;
+        }, pool, 1000);
+        assertEquals(1, threads.size());
+        assertTrue(threads.contains(Thread.currentThread().getName()));
+        pool.shutdown();
+
+        assertThrows(IllegalArgumentException.class, () -> Booster.boost(input, new Long[1], x -> 0L, ForkJoinPool.commonPool(), 1000));
+        assertThrows(IllegalArgumentException.class, () -> Booster.boost(input, new Long[input.length], x -> 0L, ForkJoinPool.commonPool(), 0));
+    }
+
+    @Test
+    void primitive() {
+        double[] input = new Random(1).doubles(1_000_003).toArray();
+        double[] output = Booster.boost(input, new double[input.length], Math::sqrt);
+        for (int i = 0; i < input.length; i++) {
+            assertEquals(Math.sqrt(input[i]), output[i]);
+        }
+
+        // 原地处理
+        double[] inPlace = input.clone();
+        assertSame(inPlace, Booster.boost(inPlace, inPlace, x -> x * 2, ForkJoinPool.commonPool(), 4096));
+        assertEquals(input[12345] * 2, inPlace[12345]);
+        assertEquals(0, Booster.boost(new double[0], new double[0], x -> x).length);
+    }
+
+    @Test
+    void defaultGrainSize() {
+        ForkJoinPool pool = new ForkJoinPool(8);
+        assertEquals(Booster.MIN_GRAIN_SIZE, Booster.defaultGrainSize(100, pool));
+        assertEquals(1_000_000 / 32, Booster.defaultGrainSize(1_000_000, pool));
+        pool.shutdown();
+    }
+
     private ConsolidatedShipmentCalculator.Order[] generateRandomOrders(int count) {
         Random random = new Random(42); // 使用固定种子以确保可重复性
         String[] destinations = {"A", "B", "C", "D", "E"}; // 简化的目的地列表
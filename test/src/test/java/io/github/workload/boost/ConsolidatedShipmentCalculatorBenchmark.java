@@ -0,0 +1,58 @@
+package io.github.workload.boost;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集合单分配随发货单数量的伸缩性：应该是线性的.
+ */
+@BenchmarkMode(value = Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@State(Scope.Benchmark)
+public class ConsolidatedShipmentCalculatorBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int orderCount;
+
+    @Param({"5", "1000"})
+    private int destinationCount;
+
+    private ConsolidatedShipmentCalculator.Order[] orders;
+
+    @Test
+    @Disabled
+    void main() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ConsolidatedShipmentCalculatorBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.TEXT)
+                .result("ConsolidatedShipmentCalculator.bench")
+                .build();
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        orders = new ConsolidatedShipmentCalculator.Order[orderCount];
+        for (int i = 0; i < orderCount; i++) {
+            orders[i] = new ConsolidatedShipmentCalculator.Order(i, random.nextFloat() * 100 + 1, "D" + random.nextInt(destinationCount));
+        }
+    }
+
+    @Benchmark
+    public List<ConsolidatedShipmentCalculator.ConsolidatedShipment> consolidateShipments() {
+        return ConsolidatedShipmentCalculator.consolidateShipments(orders);
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.workload.boost;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsolidatedShipmentCalculatorTest {
+
+    @Test
+    void contract() {
+        Random random = new Random(7);
+        String[] destinations = {"A", "B", "C", "D", "E", "F", "G"};
+        ConsolidatedShipmentCalculator.Order[] orders = new ConsolidatedShipmentCalculator.Order[200_000];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = new ConsolidatedShipmentCalculator.Order(i, random.nextFloat() * 100 + 1, destinations[random.nextInt(destinations.length)]);
+        }
+
+        List<ConsolidatedShipmentCalculator.ConsolidatedShipment> shipments = ConsolidatedShipmentCalculator.consolidateShipments(orders);
+        Set<Integer> seen = new HashSet<>();
+        for (ConsolidatedShipmentCalculator.ConsolidatedShipment shipment : shipments) {
+            assertFalse(shipment.orders.isEmpty());
+            assertTrue(shipment.totalWeight <= ConsolidatedShipmentCalculator.MAX_WEIGHT);
+            for (ConsolidatedShipmentCalculator.Order order : shipment.orders) {
+                assertEquals(shipment.destination, order.destination);
+                assertTrue(seen.add(order.id));
+            }
+        }
+        // 每个发货单恰好出现一次
+        assertEquals(orders.length, seen.size());
+    }
+
+    @Test
+    void firstFitDecreasing() {
+        ConsolidatedShipmentCalculator.Order[] orders = {
+                new ConsolidatedShipmentCalculator.Order(0, 300, "A"),
+                new ConsolidatedShipmentCalculator.Order(1, 100, "B"),
+                new ConsolidatedShipmentCalculator.Order(2, 200, "A"),
+                new ConsolidatedShipmentCalculator.Order(3, 600, "A"),
+                new ConsolidatedShipmentCalculator.Order(4, 100, "A"),
+        };
+        List<ConsolidatedShipmentCalculator.ConsolidatedShipment> shipments = ConsolidatedShipmentCalculator.consolidateShipments(orders);
+        // 目的地按首次出现排列：A(600超重独占) A(300+200) A(100) B(100)
+        assertEquals(4, shipments.size());
+        assertEquals(600, shipments.get(0).totalWeight);
+        assertEquals(500, shipments.get(1).totalWeight);
+        assertEquals(100, shipments.get(2).totalWeight);
+        assertEquals("B", shipments.get(3).destination);
+
+        assertTrue(ConsolidatedShipmentCalculator.consolidateShipments(new ConsolidatedShipmentCalculator.Order[0]).isEmpty());
+    }
+}
@@ -41,6 +41,21 @@ class SlidingTimeWindowTest extends BaseTest {
         assertEquals(0, window.calculateBucketIdx(1001));
     }
 
+    @Test
+    void values() {
+        SimpleErrorSlidingTimeWindow window = new SimpleErrorSlidingTimeWindow(5, 1000);
+        window.currentBucket(100);
+        window.currentBucket(300);
+        window.currentBucket(900);
+        assertEquals(3, window.values(900).size());
+        // [0, 200)的桶滑出窗口
+        assertEquals(2, window.values(1000).size());
+        assertEquals(1, window.values(1500).size());
+        assertEquals(0, window.values(1800).size());
+        // 尚未到来的桶不计入
+        assertEquals(2, window.values(300).size());
+    }
+
     @Test
     void has_only_one_bucket() {
         final int intervalMs = 1000;
@@ -60,6 +60,20 @@ class CountAndTimeWindowStateTest extends BaseTest {
         assertEquals(5, state.avgQueuedMs());
     }
 
+    @Test
+    void qps() {
+        CountAndTimeWindowState state = new CountAndTimeWindowState(0);
+        assertEquals(0, state.qps(0), DELTA);
+        assertEquals(0, state.qps(WindowConfig.NS_PER_SEC), DELTA);
+        for (int i = 0; i < 500; i++) {
+            state.sample(RandomUtil.randomWorkloadPriority(), true);
+        }
+        assertEquals(500, state.qps(WindowConfig.NS_PER_SEC), DELTA);
+        assertEquals(1000, state.qps(WindowConfig.NS_PER_SEC / 2), DELTA);
+        // 时钟回拨
+        assertEquals(0, state.qps(-1), DELTA);
+    }
+
     @Test
     void performanceOfCleanup() {
         CountAndTimeWindowState state = new CountAndTimeWindowState(System.nanoTime());
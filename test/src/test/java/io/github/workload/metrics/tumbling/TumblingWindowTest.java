@@ -15,11 +15,17 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 class TumblingWindowTest extends BaseTest {
     private static TumblingWindow<CountAndTimeWindowState> window;
@@ -93,6 +99,134 @@ class TumblingWindowTest extends BaseTest {
         timeCycle.set(old);
     }
 
+    @Test
+    void adaptRequestCycle() {
+        WindowConfig<CountWindowState> config = WindowConfig.create(WindowConfig.DEFAULT_TIME_CYCLE_NS, 100, WindowConfigTest.countRolloverStrategy);
+        TumblingWindow<CountWindowState> countWindow = new TumblingWindow<>(config, "adapt", System.nanoTime());
+        assertEquals(100, config.getRequestCycle());
+
+        // 无效的QPS被忽略
+        countWindow.adaptRequestCycle(0);
+        countWindow.adaptRequestCycle(Double.NaN);
+        assertEquals(100, config.getRequestCycle());
+
+        // 低QPS下不会低于初始值
+        countWindow.adaptRequestCycle(50);
+        assertEquals(100, config.getRequestCycle());
+
+        countWindow.adaptRequestCycle(WindowConfig.ROLLOVERS_PER_SEC * 500);
+        assertEquals(500, config.getRequestCycle());
+
+        // 最大放大 MAX_REQUEST_CYCLE_ZOOM 倍
+        countWindow.adaptRequestCycle(Double.MAX_VALUE);
+        assertEquals(100 * WindowConfig.MAX_REQUEST_CYCLE_ZOOM, config.getRequestCycle());
+
+        // QPS下降，随之回落
+        countWindow.adaptRequestCycle(WindowConfig.ROLLOVERS_PER_SEC * 200);
+        assertEquals(200, config.getRequestCycle());
+        assertEquals("WindowConfig(time=1s,count=200)", config.toString());
+    }
+
+    @Test
+    void asyncRollover() throws InterruptedException {
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        WindowConfig<CountAndTimeWindowState> config = WindowConfig.create(WindowConfig.DEFAULT_TIME_CYCLE_NS, 2, new CountAndTimeRolloverStrategy() {
+            @Override
+            public void onRollover(long nowNs, CountAndTimeWindowState snapshot, TumblingWindow<CountAndTimeWindowState> window) {
+                assertEquals(2, snapshot.requested());
+                threads.add(Thread.currentThread().getName());
+                latch.countDown();
+            }
+        });
+        ExecutorService controlLoop = Executors.newSingleThreadExecutor(r -> new Thread(r, "control-loop"));
+        TumblingWindow<CountAndTimeWindowState> asyncWindow = new TumblingWindow<>(config, "async", System.nanoTime(), controlLoop);
+        CountAndTimeWindowState first = asyncWindow.current();
+        asyncWindow.advance(WorkloadPriority.ofLowest(), true, System.nanoTime());
+        asyncWindow.advance(WorkloadPriority.ofLowest(), true, System.nanoTime());
+        assertNotSame(first, asyncWindow.current());
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(1, threads.size());
+        assertEquals("control-loop", threads.get(0));
+        controlLoop.shutdown();
+    }
+
+    @Test
+    void asyncRollover_boundedStaleness() {
+        final List<Long> processed = new ArrayList<>();
+        final long timeCycleNs = WindowConfig.DEFAULT_TIME_CYCLE_NS;
+        WindowConfig<CountAndTimeWindowState> config = WindowConfig.create(timeCycleNs, 1, new CountAndTimeRolloverStrategy() {
+            @Override
+            public void onRollover(long nowNs, CountAndTimeWindowState snapshot, TumblingWindow<CountAndTimeWindowState> window) {
+                processed.add(nowNs);
+            }
+        });
+        // 卡顿的控制线程：任务永远不被执行
+        final List<Runnable> stuck = new ArrayList<>();
+        TumblingWindow<CountAndTimeWindowState> asyncWindow = new TumblingWindow<>(config, "stuck", 0, stuck::add);
+        asyncWindow.advance(WorkloadPriority.ofLowest(), true, 1);
+        assertEquals(1, stuck.size());
+        assertTrue(processed.isEmpty());
+        // 未超过一个时间周期：覆盖待处理窗口，不重复提交
+        asyncWindow.advance(WorkloadPriority.ofLowest(), true, 2);
+        assertEquals(1, stuck.size());
+        assertTrue(processed.isEmpty());
+        // 滞后超过一个时间周期：请求线程兜底处理最新窗口
+        asyncWindow.advance(WorkloadPriority.ofLowest(), true, 3 + timeCycleNs);
+        assertEquals(1, processed.size());
+        assertEquals(3 + timeCycleNs, processed.get(0).longValue());
+        // 迟到的控制线程发现已被处理
+        stuck.get(0).run();
+        assertEquals(1, processed.size());
+
+        // 提交被拒绝：请求线程同步处理
+        TumblingWindow<CountAndTimeWindowState> rejectedWindow = new TumblingWindow<>(config, "rejected", 0, r -> {
+            throw new RejectedExecutionException();
+        });
+        rejectedWindow.advance(WorkloadPriority.ofLowest(), true, 5);
+        assertEquals(2, processed.size());
+    }
+
+    @Test
+    void asyncRollover_boundedStalenessUnderFrequentRollovers() {
+        final List<Long> processed = new ArrayList<>();
+        final long timeCycleNs = WindowConfig.DEFAULT_TIME_CYCLE_NS;
+        WindowConfig<CountAndTimeWindowState> config = WindowConfig.create(timeCycleNs, 1, new CountAndTimeRolloverStrategy() {
+            @Override
+            public void onRollover(long nowNs, CountAndTimeWindowState snapshot, TumblingWindow<CountAndTimeWindowState> window) {
+                processed.add(nowNs);
+            }
+        });
+        // 控制线程永远不执行；按请求数量切换窗口，相邻两次切换的间隔都小于一个时间周期
+        final List<Runnable> stuck = new ArrayList<>();
+        TumblingWindow<CountAndTimeWindowState> asyncWindow = new TumblingWindow<>(config, "frequent", 0, stuck::add);
+        final long step = timeCycleNs / 3;
+        long nowNs = 1;
+        for (int i = 0; i < 4; i++, nowNs += step) {
+            asyncWindow.advance(WorkloadPriority.ofLowest(), true, nowNs);
+        }
+        // 欠下的处理恰好一个时间周期，还未兜底
+        assertEquals(1, stuck.size());
+        assertTrue(processed.isEmpty());
+
+        // 欠下的处理超过一个时间周期：请求线程兜底处理最新窗口
+        asyncWindow.advance(WorkloadPriority.ofLowest(), true, nowNs);
+        assertEquals(1, processed.size());
+        assertEquals(nowNs, processed.get(0).longValue());
+
+        // 兜底后重新计时：再次提交给控制线程
+        nowNs += step;
+        asyncWindow.advance(WorkloadPriority.ofLowest(), true, nowNs);
+        assertEquals(2, stuck.size());
+        assertEquals(1, processed.size());
+        for (int i = 0; i < 10; i++) {
+            nowNs += step;
+            asyncWindow.advance(WorkloadPriority.ofLowest(), true, nowNs);
+        }
+        // 每隔一个多时间周期兜底一次
+        assertEquals(3, processed.size());
+    }
+
     void inject(Map<Integer, Integer> P2Requests) {
         AtomicInteger i = new AtomicInteger(0);
         Runnable task = () -> {
@@ -0,0 +1,141 @@
+package io.github.workload.overloading;
+
+import io.github.workload.BaseTest;
+import io.github.workload.Workload;
+import io.github.workload.WorkloadPriority;
+import io.github.workload.overloading.WatermarkExchange.NodeState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterAdmissionTest extends BaseTest {
+    // 定时交换在ClusterAdmission的线程上读取
+    private final Map<String, NodeState> states = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void tearDown() {
+        LoopbackWatermarkExchange.resetForTesting();
+    }
+
+    private ClusterAdmission join(String nodeId) {
+        return new ClusterAdmission(new LoopbackWatermarkExchange("test", nodeId), states::get);
+    }
+
+    private void update(String nodeId, int watermark, double gradient, long nowMs) {
+        states.put(nodeId, new NodeState(nodeId, watermark, gradient, 0, nowMs));
+    }
+
+    @Test
+    void loopback() {
+        WatermarkExchange a = new LoopbackWatermarkExchange("g1", "a");
+        WatermarkExchange b = new LoopbackWatermarkExchange("g1", "b");
+        WatermarkExchange c = new LoopbackWatermarkExchange("g2", "c");
+        assertTrue(a.peers().isEmpty());
+        a.publish(new NodeState("a", 100, 1, 0, 0));
+        assertTrue(a.peers().isEmpty());
+        assertEquals(1, b.peers().size());
+        assertEquals("a", b.peers().iterator().next().getNodeId());
+        assertTrue(c.peers().isEmpty());
+        a.close();
+        assertTrue(b.peers().isEmpty());
+    }
+
+    @Test
+    void clusterUniformlyOverloaded() {
+        final long nowMs = System.currentTimeMillis();
+        ClusterAdmission n1 = join("n1");
+        ClusterAdmission n2 = join("n2");
+        ClusterAdmission n3 = join("n3");
+        update("n1", 1000, 0.8, nowMs);
+        update("n2", 2000, 0.7, nowMs);
+        update("n3", WorkloadPriority.MAX_P, 1.2, nowMs);
+        n1.exchange(nowMs);
+        n2.exchange(nowMs);
+        n3.exchange(nowMs);
+
+        // n3 本地不过载，但多数节点过载：按集群水位线(中位数)一致地shed
+        assertEquals(2d / 3, n3.overloadedRatio(), DELTA);
+        assertEquals(2000, n3.watermark());
+        assertTrue(n3.admit(WorkloadPriority.fromP(2000)));
+        assertFalse(n3.admit(WorkloadPriority.fromP(2001)));
+
+        // 被n1拒绝的请求，只有n3会准入它
+        assertTrue(n1.retryable(WorkloadPriority.fromP(5000)));
+        update("n3", 3000, 0.9, nowMs);
+        n3.exchange(nowMs);
+        n1.exchange(nowMs);
+        assertFalse(n1.retryable(WorkloadPriority.fromP(5000)));
+        assertTrue(n1.retryable(WorkloadPriority.fromP(1500)));
+
+        n1.close();
+        n2.close();
+        n3.close();
+    }
+
+    @Test
+    void minorityOverloaded() {
+        final long nowMs = System.currentTimeMillis();
+        ClusterAdmission n1 = join("n1");
+        ClusterAdmission n2 = join("n2");
+        ClusterAdmission n3 = join("n3");
+        update("n1", 1000, 0.5, nowMs);
+        update("n2", WorkloadPriority.MAX_P, 1, nowMs);
+        update("n3", WorkloadPriority.MAX_P, 1.5, nowMs);
+        n1.exchange(nowMs);
+        n2.exchange(nowMs);
+        n3.exchange(nowMs);
+        n1.exchange(nowMs);
+
+        // 只有n1过载：不干预本地决策，其他节点可以接住重试
+        assertEquals(1d / 3, n1.overloadedRatio(), DELTA);
+        assertTrue(n1.admit(WorkloadPriority.fromP(9000)));
+        assertTrue(n1.retryable(WorkloadPriority.fromP(9000)));
+
+        n1.close();
+        n2.close();
+        n3.close();
+    }
+
+    @Test
+    void stalePeersIgnored() {
+        final long nowMs = System.currentTimeMillis();
+        ClusterAdmission n1 = join("n1");
+        ClusterAdmission n2 = join("n2");
+        update("n1", 1000, 0.5, nowMs);
+        update("n2", 1000, 0.5, nowMs - ClusterAdmission.PEER_TTL_MS - 1);
+        n2.exchange(nowMs);
+        n1.exchange(nowMs);
+        assertEquals(1, n1.overloadedRatio(), DELTA);
+        // 不了解其他节点
+        assertTrue(n1.retryable(WorkloadPriority.fromP(9000)));
+
+        n1.close();
+        n2.close();
+    }
+
+    @Test
+    void controllerSmokeTest() {
+        AdmissionController controller = AdmissionController.getInstance("cluster", null, new LoopbackWatermarkExchange("smoke", "node1"));
+        assertTrue(controller instanceof FairSafeAdmissionController);
+        assertNotNull(((FairSafeAdmissionController) controller).cluster());
+        Workload workload = Workload.ofPriority(WorkloadPriority.fromP(10));
+        assertTrue(controller.admit(workload));
+        assertTrue(controller.retryable(workload));
+        ((FairSafeAdmissionController) controller).cluster().exchange(System.currentTimeMillis());
+        assertTrue(controller.admit(workload));
+        assertTrue(AdmissionController.getInstance("plain").retryable(workload));
+
+        // 关闭后停止交换、退出集群，并移除单例
+        WatermarkExchange observer = new LoopbackWatermarkExchange("smoke", "observer");
+        assertEquals(1, observer.peers().size());
+        controller.close();
+        assertTrue(observer.peers().isEmpty());
+        assertNotSame(controller, AdmissionController.getInstance("cluster"));
+        AdmissionController.getInstance("cluster").close();
+        AdmissionController.getInstance("plain").close();
+    }
+}
@@ -105,6 +105,22 @@ class FairShedderTest extends BaseTest {
         assertEquals("[8, 10]", histogram.tailMap(5, false).keySet().toString());
     }
 
+    @Test
+    void timeCycleZoomFactor() {
+        AdmissionControllerFactory.resetForTesting();
+        FairSafeAdmissionController admissionController = (FairSafeAdmissionController) AdmissionController.getInstance("RPC");
+        final FairShedder shedder = admissionController.fairQueue();
+
+        // 过载：按梯度收缩
+        assertEquals(FairShedder.GRADIENT_BUSIEST, shedder.timeCycleZoomFactor(FairShedder.GRADIENT_BUSIEST), DELTA);
+        assertEquals(0.8, shedder.timeCycleZoomFactor(0.8), DELTA);
+        // 健康：不变
+        assertEquals(1, shedder.timeCycleZoomFactor(1), DELTA);
+        // 空闲：慢速放大
+        final double idlest = shedder.timeCycleZoomFactor(FairShedder.GRADIENT_IDLEST);
+        assertTrue(idlest > 1 && idlest < FairShedder.GRADIENT_IDLEST);
+    }
+
     @Test
     void relu_cpu_load() {
         AdmissionControllerFactory.resetForTesting();
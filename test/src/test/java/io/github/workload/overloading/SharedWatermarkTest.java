@@ -0,0 +1,116 @@
+package io.github.workload.overloading;
+
+import io.github.workload.BaseTest;
+import io.github.workload.WorkloadPriority;
+import io.github.workload.overloading.mock.SysloadAdaptiveSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedWatermarkTest extends BaseTest {
+
+    @Test
+    void fromProperty() {
+        assertNull(SharedWatermark.fromProperty());
+    }
+
+    @Test
+    void nodeWatermark() throws IOException {
+        Path path = Files.createTempFile("workload-shm", ".bin");
+        // 模拟同一节点上的3个JVM
+        SharedWatermark jvm1 = new SharedWatermark(path);
+        SharedWatermark jvm2 = new SharedWatermark(path);
+        SharedWatermark jvm3 = new SharedWatermark(path);
+        assertTrue(jvm1.nodeWatermark().isLowest());
+
+        jvm1.publish(WorkloadPriority.fromP(5000), 0.5);
+        assertEquals(5000, jvm1.nodeWatermark().P());
+        jvm2.publish(WorkloadPriority.fromP(3000), 0.9);
+        assertEquals(3000, jvm2.nodeWatermark().P());
+        jvm3.publish(WorkloadPriority.ofLowest(), 0.3);
+        assertEquals(3000, jvm3.nodeWatermark().P());
+        jvm1.publish(WorkloadPriority.fromP(6000), 0.5);
+        assertEquals(3000, jvm1.nodeWatermark().P());
+
+        // jvm2 退出后，它的水位线不再生效
+        jvm2.close();
+        jvm1.publish(WorkloadPriority.fromP(6000), 0.5);
+        assertEquals(6000, jvm1.nodeWatermark().P());
+
+        // 空出的slot被复用
+        SharedWatermark jvm4 = new SharedWatermark(path);
+        jvm4.publish(WorkloadPriority.fromP(100), 0.95);
+        jvm3.publish(WorkloadPriority.ofLowest(), 0.3);
+        assertEquals(100, jvm3.nodeWatermark().P());
+
+        // CPU未饱和的peer(jvm1, jvm4)，其水位线不参与汇总
+        jvm4.publish(WorkloadPriority.fromP(100), 0.3);
+        jvm3.publish(WorkloadPriority.ofLowest(), 0.3);
+        assertTrue(jvm3.nodeWatermark().isLowest());
+        // 本进程的水位线总是生效
+        assertEquals(100, jvm4.nodeWatermark().P());
+
+        jvm1.close();
+        jvm3.close();
+        jvm4.close();
+        Files.delete(path);
+    }
+
+    @Test
+    void concurrentClaimInSameJvm() throws Exception {
+        Path path = Files.createTempFile("workload-shm", ".bin");
+        final int n = 16;
+        SharedWatermark[] instances = new SharedWatermark[n];
+        ExecutorService executor = Executors.newFixedThreadPool(n);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            final int idx = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                instances[idx] = new SharedWatermark(path);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(); // 不会抛出 OverlappingFileLockException
+        }
+        executor.shutdown();
+
+        for (SharedWatermark instance : instances) {
+            instance.close();
+        }
+        Files.delete(path);
+    }
+
+    @Test
+    void admissionWatermark() throws IOException {
+        Path path = Files.createTempFile("workload-shm", ".bin");
+        SharedWatermark peer = new SharedWatermark(path);
+        FairShedderCpu shedder = new FairShedderCpu(FairShedderCpu.CPU_USAGE_UPPER_BOUND, new SysloadAdaptiveSimulator(), new SharedWatermark(path));
+        assertTrue(shedder.admissionWatermark().isLowest());
+
+        // 其他JVM过载，收紧了水位线：B=50 的请求不会被概率性放行
+        final int P = 50 << 7;
+        peer.publish(WorkloadPriority.fromP(P), 0.95);
+        shedder.predictWatermark(shedder.currentWindow(), 1, System.nanoTime());
+        assertTrue(shedder.watermark().isLowest());
+        assertEquals(P, shedder.admissionWatermark().P());
+        assertFalse(shedder.admit(WorkloadPriority.fromP(P + 1)));
+        assertTrue(shedder.admit(WorkloadPriority.fromP(P)));
+
+        peer.close();
+        Files.delete(path);
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -36,6 +37,66 @@ class BudgetedRetryHandlerTest {
         assertFalse(budgetedRetryHandler.canRetry(baidu, budget));
     }
 
+    @Test
+    void overloadAware() {
+        final String service = "foo";
+        final double budget = 0.2;
+        for (int i = 0; i < 100; i++) {
+            budgetedRetryHandler.recordRequest(service);
+        }
+
+        // 集群均匀过载：预算收缩到0
+        budgetedRetryHandler.recordOverloaded(service, 1);
+        assertTrue(budgetedRetryHandler.canRetry(service, budget)); // 0 retries
+        assertFalse(budgetedRetryHandler.canRetry(service, budget));
+
+        // 只有个别节点过载：预算略有收缩，仍可重试
+        budgetedRetryHandler.recordOverloaded(service, 0.5);
+        int retries = 1;
+        while (budgetedRetryHandler.canRetry(service, budget)) {
+            retries++;
+        }
+        assertEquals(11, retries); // 10/100 <= 0.2 * (1 - 0.5)
+
+        // 没有server信号时，按窗口内过载响应的比例收缩
+        final String bar = "bar";
+        for (int i = 0; i < 100; i++) {
+            budgetedRetryHandler.recordRequest(bar);
+            if (i % 2 == 0) {
+                budgetedRetryHandler.recordOverloaded(bar);
+            }
+        }
+        retries = 0;
+        while (budgetedRetryHandler.canRetry(bar, budget)) {
+            retries++;
+        }
+        assertEquals(11, retries);
+    }
+
+    @Test
+    void slidingWindow() throws InterruptedException {
+        final String service = "foo";
+        for (int i = 0; i < 10; i++) {
+            budgetedRetryHandler.recordRequest(service);
+        }
+        assertTrue(budgetedRetryHandler.canRetry(service, 0.1));
+        assertTrue(budgetedRetryHandler.canRetry(service, 0.1));
+        assertFalse(budgetedRetryHandler.canRetry(service, 0.1));
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        // 旧的计数仍在窗口内，重试不会因为窗口重置而突增
+        for (int i = 0; i < 10; i++) {
+            budgetedRetryHandler.recordRequest(service);
+        }
+        assertTrue(budgetedRetryHandler.canRetry(service, 0.1)); // 2/20
+        assertFalse(budgetedRetryHandler.canRetry(service, 0.1));
+
+        // 第一批请求及其重试滑出窗口
+        TimeUnit.MILLISECONDS.sleep(700);
+        assertTrue(budgetedRetryHandler.canRetry(service, 0.1)); // 1/10
+        assertFalse(budgetedRetryHandler.canRetry(service, 0.1));
+    }
+
     @Test
     void edge_cases() {
         OverloadHandler handler = new BudgetedRetryHandler(-10);
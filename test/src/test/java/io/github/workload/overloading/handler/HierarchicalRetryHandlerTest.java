@@ -0,0 +1,116 @@
+package io.github.workload.overloading.handler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalRetryHandlerTest {
+
+    private int retriesUntilExhausted(OverloadHandler handler, String method, String tenant) {
+        int retries = 0;
+        while (handler.canRetry("svc", method, tenant, 0.1)) {
+            retries++;
+        }
+        return retries;
+    }
+
+    @Test
+    void noisyTenant() {
+        OverloadHandler handler = new HierarchicalRetryHandler(10, 0.1, 0.05, 100);
+        for (int i = 0; i < 100; i++) {
+            handler.recordRequest("svc", "query", "noisy");
+            handler.recordRequest("svc", "query", "quiet");
+        }
+
+        // 噪声租户只能用掉自己的配额，而不是整个下游的预算
+        assertEquals(6, retriesUntilExhausted(handler, "query", "noisy"));
+        assertEquals(6, retriesUntilExhausted(handler, "query", "quiet"));
+        assertEquals(0, retriesUntilExhausted(handler, "query", "unknown"));
+    }
+
+    @Test
+    void serviceCeiling() {
+        OverloadHandler handler = new HierarchicalRetryHandler(10, 1, 1, 100);
+        for (int i = 0; i < 100; i++) {
+            handler.recordRequest("svc", "query", "t1");
+            handler.recordRequest("svc", "update", "t2");
+        }
+
+        // 全局上限：200 * 0.1
+        assertEquals(21, retriesUntilExhausted(handler, "query", "t1"));
+        assertEquals(0, retriesUntilExhausted(handler, "update", "t2"));
+        assertFalse(handler.canRetry("svc", 0.1));
+
+        // 下游均匀过载
+        handler.recordRequest("svc2", "query", "t1");
+        handler.recordOverloaded("svc2", 1);
+        assertTrue(handler.canRetry("svc2", "query", "t1", 0.5));
+        assertFalse(handler.canRetry("svc2", "query", "t1", 0.5));
+    }
+
+    @Test
+    void methodBudget() {
+        OverloadHandler handler = new HierarchicalRetryHandler(10, 0.05, 1, 100);
+        for (int i = 0; i < 100; i++) {
+            handler.recordRequest("svc", "query", "t" + i);
+            handler.recordRequest("svc", "update", "t" + i);
+        }
+        for (int i = 0; i < 100; i++) {
+            handler.canRetry("svc", "query", "t" + i, 1);
+        }
+        // query方法的子预算耗尽不影响update方法
+        assertFalse(handler.canRetry("svc", "query", "t0", 1));
+        assertTrue(handler.canRetry("svc", "update", "t0", 1));
+    }
+
+    @Test
+    void boundedMemory() throws InterruptedException {
+        BudgetedRetryHandler handler = new BudgetedRetryHandler(1, 8);
+        for (int i = 0; i < 1000; i++) {
+            handler.recordRequest("tenant" + i);
+        }
+        assertEquals(8, handler.size());
+        assertTrue(handler.canRetry("tenant0", 1));
+        // 超出上限的key没有独立统计，不允许重试：不会花掉其他key挣来的预算
+        for (int i = 0; i < 100; i++) {
+            handler.recordRequest("tenant999");
+        }
+        assertFalse(handler.canRetry("tenant999", 1));
+
+        // 空闲超过窗口时长的key被清理，为新key腾出空间
+        TimeUnit.MILLISECONDS.sleep(1100);
+        handler.recordRequest("tenant999");
+        assertTrue(handler.size() <= 8);
+        assertTrue(handler.canRetry("tenant999", 1));
+        assertThrows(IllegalArgumentException.class, () -> new BudgetedRetryHandler(10, 0));
+
+        // 只读的检查不为未知的key分配窗口
+        final int size = handler.size();
+        assertFalse(handler.hasBudget("unknown", 1));
+        assertEquals(size, handler.size());
+    }
+
+    @Test
+    void untrackedKeysFallBackToParent() {
+        OverloadHandler handler = new HierarchicalRetryHandler(10, 0.1, 0.1, 8);
+        for (int i = 0; i < 100; i++) {
+            handler.recordRequest("svc", "query", "t" + i);
+        }
+        // tenant层已满：新租户没有独立统计，但service和method层的预算充足
+        assertTrue(handler.canRetry("svc", "query", "t99", 1));
+        // 上一层的预算仍然生效：共11次，即 retries/requests 超过 0.1 前
+        assertEquals(10, retriesUntilExhausted(handler, "query", "t99"));
+        // 从未记录过请求的方法没有预算
+        assertFalse(handler.canRetry("svc", "unknown", "t0", 1));
+    }
+
+    @Test
+    void flatHandler() {
+        OverloadHandler handler = OverloadHandler.ofRetryBudget();
+        handler.recordRequest("svc", "query", "t1");
+        assertTrue(handler.canRetry("svc", "query", "t1", 0.1));
+        assertFalse(handler.canRetry("svc", 0.1));
+    }
+}
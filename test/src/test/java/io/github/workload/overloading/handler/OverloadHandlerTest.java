@@ -10,6 +10,7 @@ class OverloadHandlerTest {
     void basic() {
         OverloadHandler handler = OverloadHandler.ofRetryBudget();
         assertTrue(handler instanceof BudgetedRetryHandler);
+        assertTrue(OverloadHandler.ofHierarchicalRetryBudget(0.1, 0.05) instanceof HierarchicalRetryHandler);
     }
 
 }
\ No newline at end of file
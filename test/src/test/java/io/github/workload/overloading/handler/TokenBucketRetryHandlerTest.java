@@ -0,0 +1,116 @@
+package io.github.workload.overloading.handler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRetryHandlerTest {
+
+    @Test
+    void basic() {
+        TokenBucketRetryHandler handler = new TokenBucketRetryHandler(0.1, 5);
+        // 桶初始是满的
+        assertEquals(5 * TokenBucketRetryHandler.MILLI_TOKENS, handler.milliTokens("foo"));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(handler.canRetry("foo", 1));
+        }
+        assertFalse(handler.canRetry("foo", 1));
+        for (int i = 0; i < 9; i++) {
+            handler.recordRequest("foo");
+        }
+        assertFalse(handler.canRetry("foo", 1));
+        handler.recordRequest("foo");
+        assertTrue(handler.canRetry("foo", 0));
+        assertFalse(handler.canRetry("foo", 1));
+        assertEquals(0, handler.milliTokens("foo"));
+
+        // 容量限制了连续重试的次数
+        for (int i = 0; i < 1000; i++) {
+            handler.recordRequest("foo");
+        }
+        assertEquals(5 * TokenBucketRetryHandler.MILLI_TOKENS, handler.milliTokens("foo"));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(handler.canRetry("foo", 1));
+        }
+        assertFalse(handler.canRetry("foo", 1));
+        assertTrue(handler.canRetry("bar", 1));
+    }
+
+    @Test
+    void overloaded() {
+        TokenBucketRetryHandler handler = new TokenBucketRetryHandler(0.5, 10);
+        // 先耗尽初始令牌
+        while (handler.canRetry("foo", 1)) {
+        }
+        handler.recordOverloaded("foo", 1);
+        for (int i = 0; i < 100; i++) {
+            handler.recordRequest("foo");
+        }
+        assertFalse(handler.canRetry("foo", 1));
+
+        handler.recordOverloaded("foo", 0.5);
+        for (int i = 0; i < 4; i++) {
+            handler.recordRequest("foo");
+        }
+        assertTrue(handler.canRetry("foo", 1));
+        assertFalse(handler.canRetry("foo", 1));
+    }
+
+    @Test
+    void overloadedSignalExpires() throws InterruptedException {
+        TokenBucketRetryHandler handler = new TokenBucketRetryHandler(0.5, 10, 200);
+        // 先耗尽初始令牌
+        while (handler.canRetry("foo", 1)) {
+        }
+        handler.recordOverloaded("foo", 1);
+        for (int i = 0; i < 100; i++) {
+            handler.recordRequest("foo");
+        }
+        assertEquals(0, handler.milliTokens("foo"));
+
+        // 信号过期后恢复存入
+        TimeUnit.MILLISECONDS.sleep(300);
+        for (int i = 0; i < 2; i++) {
+            handler.recordRequest("foo");
+        }
+        assertTrue(handler.canRetry("foo", 1));
+        assertFalse(handler.canRetry("foo", 1));
+    }
+
+    @Test
+    void concurrent() throws InterruptedException {
+        TokenBucketRetryHandler handler = new TokenBucketRetryHandler(0.1, 1000);
+        // 桶满时存入的令牌被丢弃，先耗尽初始令牌
+        while (handler.canRetry("foo", 1)) {
+        }
+        final int threads = 8;
+        final AtomicInteger retries = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    handler.recordRequest("foo");
+                    if (handler.canRetry("foo", 1)) {
+                        retries.incrementAndGet();
+                    }
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        // 令牌守恒
+        assertEquals(threads * 1000 * 100, retries.get() * TokenBucketRetryHandler.MILLI_TOKENS + handler.milliTokens("foo"));
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> OverloadHandler.ofRetryTokenBucket(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> OverloadHandler.ofRetryTokenBucket(1.1, 10));
+        assertThrows(IllegalArgumentException.class, () -> OverloadHandler.ofRetryTokenBucket(0.1, 0));
+        assertTrue(OverloadHandler.ofRetryTokenBucket(0.1, 10) instanceof TokenBucketRetryHandler);
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.workload.safe;
+
+import io.github.workload.BaseTest;
+import io.github.workload.greedy.GreedyException;
+import io.github.workload.greedy.GreedyLimiter;
+import io.github.workload.mock.CostAwareDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchPacerTest extends BaseTest {
+
+    @Test
+    void permits() {
+        assertEquals(3, BatchPacer.permits(new SafeBatcher.Batch<>(Arrays.asList("a", "b", "c"))));
+        assertEquals(10, BatchPacer.permits(new SafeBatcher.Batch<>(Arrays.asList(CostAwareDto.create(1L, 4), CostAwareDto.create(2L, 6)))));
+        assertEquals(1, BatchPacer.permits(new SafeBatcher.Batch<>(new ArrayList<>())));
+    }
+
+    @Test
+    void paceSafeBatcher() {
+        List<Integer> dataset = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            dataset.add(i);
+        }
+        // 每秒1000个数据项，每批20个：5个批次至少需要80ms
+        SafeBatcher.Guard guard = SafeBatcher.Guard.builder()
+                .itemsThreshold(1000)
+                .pacer(BatchPacer.ofLocal(1000, 1000))
+                .build();
+        final long startNs = System.nanoTime();
+        int total = 0;
+        for (SafeBatcher.Batch<Integer> batch : new SafeBatcher<>(dataset, 20, guard)) {
+            total += batch.size();
+        }
+        assertEquals(100, total);
+        final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+        assertTrue(elapsedMs >= 75, "" + elapsedMs);
+    }
+
+    @Test
+    void maxWait() {
+        BatchPacer pacer = new BatchPacer(new SmoothTokenBucketLimiter(10, 0), "x", 20);
+        SafeBatcher.Batch<String> batch = new SafeBatcher.Batch<>(Arrays.asList("a", "b", "c"));
+        pacer.pace(batch);
+        // 预支的3个令牌需要300ms偿还
+        assertThrows(GreedyException.class, () -> pacer.pace(batch));
+    }
+
+    @Test
+    void pollingLimiter() throws Exception {
+        // 不支持预约的限流器：第3次才允许
+        AtomicInteger attempts = new AtomicInteger();
+        GreedyLimiter limiter = (key, permits) -> attempts.incrementAndGet() >= 3;
+        BatchPacer pacer = new BatchPacer(limiter, "x", 1000);
+        SafeBatcher.Batch<String> batch = new SafeBatcher.Batch<>(Arrays.asList("a", "b"));
+        pacer.pace(batch);
+        assertEquals(3, attempts.get());
+
+        attempts.set(0);
+        assertSame(batch, pacer.paceAsync(batch).get(1, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+
+        BatchPacer rejecting = new BatchPacer((key, permits) -> false, "x", 10);
+        CompletableFuture<SafeBatcher.Batch<String>> future = rejecting.paceAsync(batch);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof GreedyException);
+        assertThrows(GreedyException.class, () -> rejecting.pace(batch));
+    }
+
+    @Test
+    void paceAsync() throws Exception {
+        BatchPacer pacer = new BatchPacer(new SmoothTokenBucketLimiter(100, 0), "x", 1000);
+        SafeBatcher.Batch<String> batch = new SafeBatcher.Batch<>(Arrays.asList("a", "b", "c", "d", "e"));
+        assertTrue(pacer.paceAsync(batch).isDone());
+        // 需要等待约50ms
+        final long startNs = System.nanoTime();
+        CompletableFuture<SafeBatcher.Batch<String>> future = pacer.paceAsync(batch);
+        assertFalse(future.isDone());
+        assertSame(batch, future.get(1, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs) >= 40);
+    }
+}
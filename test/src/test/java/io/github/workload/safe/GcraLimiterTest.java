@@ -0,0 +1,46 @@
+package io.github.workload.safe;
+
+import io.github.workload.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GcraLimiterTest extends BaseTest {
+
+    @Test
+    void burstThenRate() throws InterruptedException {
+        // 每秒100个：发放间隔10ms
+        GcraLimiter limiter = new GcraLimiter(100, 5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.canAcquire("a", 1));
+        }
+        assertFalse(limiter.canAcquire("a", 1));
+        assertTrue(limiter.canAcquire("b", 5));
+        assertFalse(limiter.canAcquire("c", 6));
+
+        TimeUnit.MILLISECONDS.sleep(25);
+        assertTrue(limiter.canAcquire("a", 2));
+        assertFalse(limiter.canAcquire("a", 1));
+        assertThrows(IllegalArgumentException.class, () -> limiter.canAcquire("a", 0));
+    }
+
+    @Test
+    void tryReserve() {
+        GcraLimiter limiter = new GcraLimiter(100, 1);
+        assertEquals(0, limiter.tryReserve("a", 1, 0));
+        long waitNanos = limiter.tryReserve("a", 5, TimeUnit.SECONDS.toNanos(1));
+        assertTrue(waitNanos > TimeUnit.MILLISECONDS.toNanos(40) && waitNanos <= TimeUnit.MILLISECONDS.toNanos(50), "" + waitNanos);
+        assertEquals(-1, limiter.tryReserve("a", 1, TimeUnit.MILLISECONDS.toNanos(10)));
+    }
+
+    @Test
+    void maxKeys() {
+        GcraLimiter limiter = new GcraLimiter(100, 1, 100);
+        for (int i = 0; i < 1000; i++) {
+            limiter.canAcquire("key" + i, 1);
+        }
+        assertEquals(100, limiter.size());
+    }
+}
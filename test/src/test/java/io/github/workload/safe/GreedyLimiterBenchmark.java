@@ -0,0 +1,83 @@
+package io.github.workload.safe;
+
+import io.github.workload.greedy.GreedyLimiter;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地限流器在高基数key下的对比：maxKeys小于key数量时包含了清理与溢出的开销.
+ */
+@BenchmarkMode(value = Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class GreedyLimiterBenchmark {
+    private static final int MAX_KEYS = 100_000;
+
+    @Param({"1", "10000", "1000000"})
+    private int keyCardinality;
+
+    private String[] keys;
+    private GreedyLimiter gcra;
+    private GreedyLimiter slidingWindow;
+    private GreedyLimiter stripedTokenBucket;
+    private GreedyLimiter smoothTokenBucket;
+
+    @Test
+    @Disabled
+    void main() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(GreedyLimiterBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.TEXT)
+                .result("GreedyLimiter.bench")
+                .build();
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        keys = new String[keyCardinality];
+        for (int i = 0; i < keyCardinality; i++) {
+            keys[i] = "tenant_" + i;
+        }
+        gcra = new GcraLimiter(1000, 100, MAX_KEYS);
+        slidingWindow = new SlidingWindowLimiter(1000, 1000, MAX_KEYS);
+        stripedTokenBucket = new StripedTokenBucketLimiter(1000, 100, 4, MAX_KEYS);
+        smoothTokenBucket = new SmoothTokenBucketLimiter(1000, 0.1, MAX_KEYS);
+    }
+
+    private String key() {
+        return keys[ThreadLocalRandom.current().nextInt(keyCardinality)];
+    }
+
+    @Benchmark
+    public boolean gcra() {
+        return gcra.canAcquire(key(), 1);
+    }
+
+    @Benchmark
+    public boolean slidingWindow() {
+        return slidingWindow.canAcquire(key(), 1);
+    }
+
+    @Benchmark
+    public boolean stripedTokenBucket() {
+        return stripedTokenBucket.canAcquire(key(), 1);
+    }
+
+    @Benchmark
+    public boolean smoothTokenBucket() {
+        return smoothTokenBucket.canAcquire(key(), 1);
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.workload.safe;
+
+import io.github.workload.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedStatesTest extends BaseTest {
+
+    @Test
+    void bounded() throws InterruptedException {
+        AtomicBoolean idle = new AtomicBoolean(false);
+        KeyedStates<KeyedStates.State> states = new KeyedStates<>(10, () -> nowNanos -> idle.get());
+        for (int i = 0; i < 10; i++) {
+            assertSame(states.get("k" + i), states.get("k" + i));
+        }
+        assertEquals(10, states.size());
+
+        // 超过上限的key共享溢出状态
+        KeyedStates.State overflow = states.get("k10");
+        assertSame(overflow, states.get("k10"));
+        assertEquals(10, states.size());
+
+        // 清理空闲状态后腾出空间：清理最多每秒一次
+        idle.set(true);
+        TimeUnit.MILLISECONDS.sleep(1010);
+        states.get("k11");
+        assertEquals(1, states.size());
+
+        assertThrows(IllegalArgumentException.class, () -> new KeyedStates<>(0, () -> nowNanos -> true));
+    }
+}
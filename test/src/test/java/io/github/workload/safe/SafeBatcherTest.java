@@ -5,7 +5,12 @@ import io.github.workload.mock.CostAwareDto;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -59,6 +64,158 @@ class SafeBatcherTest extends BaseTest {
         assertEquals(120, total.get());
     }
 
+    @Test
+    void parallelMap() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<String> orderNos = generateOrderNos(100);
+        SafeBatcher<String> safeBatcher = new SafeBatcher<>(orderNos, 7, null);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<String> firsts = safeBatcher.parallelMap(executor, 3, batch -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextInt(10));
+            } catch (InterruptedException ignored) {
+            }
+            inFlight.decrementAndGet();
+            return batch.first();
+        });
+        // 结果按批次顺序
+        assertEquals(15, firsts.size());
+        for (int i = 0; i < firsts.size(); i++) {
+            assertEquals(String.valueOf(i * 7), firsts.get(i));
+        }
+        assertTrue(maxInFlight.get() <= 3);
+
+        assertThrows(IllegalArgumentException.class, () -> safeBatcher.parallelForEach(executor, 0, batch -> {
+        }));
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void parallelForEach_guard() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<String> orderNos = generateOrderNos(120);
+        SafeBatcher.Guard guard = SafeBatcher.Guard.builder()
+                .itemsThreshold(110)
+                .build();
+        SafeBatcher<String> safeBatcher = new SafeBatcher<>(orderNos, 23, guard);
+        AtomicInteger total = new AtomicInteger();
+        safeBatcher.parallelForEach(executor, 2, batch -> total.addAndGet(batch.size()));
+        // 第5个批次越过阈值，不再提交
+        assertEquals(92, total.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void parallelForEach_failure() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<String> orderNos = generateOrderNos(100);
+        SafeBatcher<String> safeBatcher = new SafeBatcher<>(orderNos, 10, null);
+        AtomicInteger executed = new AtomicInteger();
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> safeBatcher.parallelForEach(executor, 1, batch -> {
+            executed.incrementAndGet();
+            if ("20".equals(batch.first())) {
+                throw new IllegalStateException("batch failed");
+            }
+        }));
+        assertEquals("batch failed", e.getMessage());
+        // 失败后停止提交：maxInFlight=1 时拿到额度后复查失败标记，不会再提交
+        assertEquals(3, executed.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void parallelPacesOnlyLaunchedBatches() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AtomicInteger paced = new AtomicInteger();
+        SafeBatcher.Guard guard = SafeBatcher.Guard.builder()
+                .itemsThreshold(110)
+                .pacer(new BatchPacer((key, permits) -> paced.incrementAndGet() > 0, "x", 10))
+                .build();
+        AtomicInteger launched = new AtomicInteger();
+        new SafeBatcher<>(generateOrderNos(120), 23, guard).parallelForEach(executor, 2, batch -> launched.incrementAndGet());
+        // 越过阈值的第5个批次没有提交，也没有消耗令牌
+        assertEquals(4, launched.get());
+        assertEquals(4, paced.get());
+
+        paced.set(0);
+        SafeBatcher.Guard failing = SafeBatcher.Guard.builder()
+                .itemsThreshold(1000)
+                .pacer(new BatchPacer((key, permits) -> paced.incrementAndGet() > 0, "x", 10))
+                .build();
+        SafeBatcher<String> safeBatcher = new SafeBatcher<>(generateOrderNos(100), 10, failing);
+        assertThrows(IllegalStateException.class, () -> safeBatcher.parallelForEach(executor, 1, batch -> {
+            if ("20".equals(batch.first())) {
+                throw new IllegalStateException("batch failed");
+            }
+        }));
+        // 失败后拿到额度的批次不再提交，也不再消耗令牌
+        assertEquals(3, paced.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void costsThreshold() {
+        // 每项成本3，每批5项即15
+        List<CostAwareDto> dtos = generateCostAwareDtos(20, 3);
+        SafeBatcher.Guard guard = SafeBatcher.Guard.builder()
+                .itemsThreshold(100)
+                .costsThreshold(40)
+                .build();
+        int total = 0;
+        for (SafeBatcher.Batch<CostAwareDto> batch : new SafeBatcher<>(dtos, 5, guard)) {
+            assertEquals(15, batch.getCosts());
+            total += batch.size();
+        }
+        // 只告警
+        assertEquals(20, total);
+
+        guard = SafeBatcher.Guard.builder()
+                .itemsThreshold(100)
+                .costsThreshold(40)
+                .stopOnExceed(true)
+                .build();
+        total = 0;
+        for (SafeBatcher.Batch<CostAwareDto> batch : new SafeBatcher<>(dtos, 5, guard)) {
+            total += batch.size();
+        }
+        // 第3批累计成本45越过阈值
+        assertEquals(10, total);
+
+        AtomicInteger parallelTotal = new AtomicInteger();
+        guard = SafeBatcher.Guard.builder()
+                .itemsThreshold(100)
+                .costsThreshold(40)
+                .build();
+        new SafeBatcher<>(dtos, 5, guard).parallelForEach(Runnable::run, 1, batch -> parallelTotal.addAndGet(batch.size()));
+        assertEquals(10, parallelTotal.get());
+    }
+
+    @Test
+    void ofCosts() {
+        List<CostAwareDto> dtos = new ArrayList<>();
+        int[] costs = {3, 3, 3, 9, 20, 1, 1, 1, 1, 1, 1, 1};
+        for (int i = 0; i < costs.length; i++) {
+            dtos.add(CostAwareDto.create((long) i, costs[i]));
+        }
+        List<Integer> sizes = new ArrayList<>();
+        List<Integer> batchCosts = new ArrayList<>();
+        for (SafeBatcher.Batch<CostAwareDto> batch : SafeBatcher.ofCosts(dtos, 10, 5, null)) {
+            sizes.add(batch.size());
+            batchCosts.add(batch.getCosts());
+        }
+        // 成本切分：3+3+3 | 9 | 20(超重独占) | 数量切分：1*5 | 1*2
+        assertEquals(Arrays.asList(3, 1, 1, 5, 2), sizes);
+        assertEquals(Arrays.asList(9, 9, 20, 5, 2), batchCosts);
+
+        assertFalse(SafeBatcher.ofCosts(new ArrayList<CostAwareDto>(), 10, 5, null).iterator().hasNext());
+        assertThrows(IllegalArgumentException.class, () -> SafeBatcher.ofCosts(dtos, 0, 5, null));
+        SafeBatcher.Guard guard = SafeBatcher.Guard.builder().itemsThreshold(100).costsThreshold(5).build();
+        assertThrows(IllegalArgumentException.class, () -> SafeBatcher.ofCosts(dtos, 10, 5, guard));
+    }
+
     @Test
     void real_use_case() {
         List<String> orderNos = generateOrderNos(100);
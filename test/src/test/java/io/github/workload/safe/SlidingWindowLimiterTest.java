@@ -0,0 +1,49 @@
+package io.github.workload.safe;
+
+import io.github.workload.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowLimiterTest extends BaseTest {
+
+    @Test
+    void window() throws InterruptedException {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(10, 200);
+        assertTrue(limiter.canAcquire("a", 6));
+        assertTrue(limiter.canAcquire("a", 4));
+        assertFalse(limiter.canAcquire("a", 1));
+        assertTrue(limiter.canAcquire("b", 10));
+        assertFalse(limiter.canAcquire("c", 11));
+
+        // 整个窗口滑出
+        TimeUnit.MILLISECONDS.sleep(220);
+        assertTrue(limiter.canAcquire("a", 10));
+
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowLimiter(10, 5));
+        assertThrows(IllegalArgumentException.class, () -> limiter.canAcquire("a", 0));
+    }
+
+    @Test
+    void idleByGivenTime() {
+        SlidingWindowLimiter.Window window = new SlidingWindowLimiter.Window(200);
+        final long nowNanos = System.nanoTime();
+        assertTrue(window.isIdle(nowNanos));
+
+        window.currentBucket(SlidingWindowLimiter.toMillis(nowNanos)).data().addAndGet(1);
+        assertFalse(window.isIdle(nowNanos));
+        // 以传入的时间为准：窗口滑出后即空闲，无需真的等待
+        assertTrue(window.isIdle(nowNanos + TimeUnit.MILLISECONDS.toNanos(220)));
+    }
+
+    @Test
+    void maxKeys() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(10, 1000, 50);
+        for (int i = 0; i < 200; i++) {
+            limiter.canAcquire("key" + i, 1);
+        }
+        assertEquals(50, limiter.size());
+    }
+}
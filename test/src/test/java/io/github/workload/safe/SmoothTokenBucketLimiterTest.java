@@ -0,0 +1,39 @@
+package io.github.workload.safe;
+
+import io.github.workload.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmoothTokenBucketLimiterTest extends BaseTest {
+
+    @Test
+    void prepay() {
+        // 每秒100个令牌：每个令牌10ms
+        SmoothTokenBucketLimiter limiter = new SmoothTokenBucketLimiter(100, 0);
+        assertEquals(0, limiter.tryReserve("a", 50, 0));
+        // 前一个请求预支了50个令牌，需要等待约500ms
+        long waitNanos = limiter.tryReserve("a", 1, TimeUnit.SECONDS.toNanos(1));
+        assertTrue(waitNanos > TimeUnit.MILLISECONDS.toNanos(400), "" + waitNanos);
+        assertFalse(limiter.canAcquire("a", 1));
+        assertEquals(-1, limiter.tryReserve("a", 1, TimeUnit.MILLISECONDS.toNanos(100)));
+
+        // key之间相互独立
+        assertTrue(limiter.canAcquire("b", 1));
+        assertThrows(IllegalArgumentException.class, () -> limiter.canAcquire("b", 0));
+        assertThrows(IllegalArgumentException.class, () -> new SmoothTokenBucketLimiter(0, 1));
+    }
+
+    @Test
+    void burst() throws InterruptedException {
+        SmoothTokenBucketLimiter limiter = new SmoothTokenBucketLimiter(1000, 0.05);
+        assertTrue(limiter.canAcquire("a", 1));
+        TimeUnit.MILLISECONDS.sleep(100);
+        // 空闲期间最多积累50个令牌
+        assertEquals(0, limiter.tryReserve("a", 50, 0));
+        assertTrue(limiter.canAcquire("a", 1));
+        assertFalse(limiter.canAcquire("a", 1));
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.workload.safe;
+
+import io.github.workload.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingBatcherTest extends BaseTest {
+
+    @Test
+    void lazy() {
+        AtomicInteger pulled = new AtomicInteger();
+        Iterator<Integer> cursor = IntStream.range(0, 100).peek(i -> pulled.incrementAndGet()).iterator();
+        StreamingBatcher<Integer> batcher = new StreamingBatcher<>(cursor, 30, null);
+        List<Integer> firsts = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        for (SafeBatcher.Batch<Integer> batch : batcher) {
+            // 只拉取了当前批次
+            assertEquals(firsts.size() * 30 + batch.size(), pulled.get());
+            firsts.add(batch.first());
+            sizes.add(batch.size());
+        }
+        assertEquals(100, pulled.get());
+        assertEquals(Arrays.asList(0, 30, 60, 90), firsts);
+        assertEquals(Arrays.asList(30, 30, 30, 10), sizes);
+
+        // 只能遍历一次
+        assertThrows(IllegalStateException.class, batcher::iterator);
+    }
+
+    @Test
+    void guard() {
+        AtomicInteger pulled = new AtomicInteger();
+        SafeBatcher.Guard guard = SafeBatcher.Guard.builder()
+                .itemsThreshold(50)
+                .stopOnExceed(true)
+                .build();
+        StreamingBatcher<Integer> batcher = new StreamingBatcher<>(IntStream.range(0, 1000).boxed().peek(i -> pulled.incrementAndGet()), 20, guard);
+        int total = 0;
+        for (SafeBatcher.Batch<Integer> batch : batcher) {
+            total += batch.size();
+        }
+        assertEquals(40, total);
+        // 越过阈值后不再从数据源拉取
+        assertEquals(60, pulled.get());
+
+        assertThrows(IllegalArgumentException.class, () -> new StreamingBatcher<>(IntStream.range(0, 10).boxed(), 100, guard));
+        assertThrows(IllegalArgumentException.class, () -> new StreamingBatcher<>(IntStream.range(0, 10).boxed(), 0, null));
+    }
+
+    @Test
+    void empty() {
+        StreamingBatcher<String> batcher = new StreamingBatcher<>(new ArrayList<String>().iterator(), 10, null);
+        Iterator<SafeBatcher.Batch<String>> iterator = batcher.iterator();
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+}
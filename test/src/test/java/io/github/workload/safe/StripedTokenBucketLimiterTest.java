@@ -0,0 +1,55 @@
+package io.github.workload.safe;
+
+import io.github.workload.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedTokenBucketLimiterTest extends BaseTest {
+
+    @Test
+    void capacity() {
+        // 每秒1个令牌，几乎不补充
+        StripedTokenBucketLimiter limiter = new StripedTokenBucketLimiter(1, 16, 4, 100);
+        int acquired = 0;
+        for (int i = 0; i < 100; i++) {
+            if (limiter.canAcquire("a", 1)) {
+                acquired++;
+            }
+        }
+        // 本线程的分段耗尽后从其他分段获取
+        assertEquals(16, acquired);
+
+        // 超过单个分段容量的大请求合并所有分段
+        assertTrue(limiter.canAcquire("b", 10));
+        assertFalse(limiter.canAcquire("b", 10));
+        assertTrue(limiter.canAcquire("b", 6));
+        assertFalse(limiter.canAcquire("c", 17));
+        assertThrows(IllegalArgumentException.class, () -> limiter.canAcquire("a", 0));
+    }
+
+    @Test
+    void concurrent() throws InterruptedException {
+        StripedTokenBucketLimiter limiter = new StripedTokenBucketLimiter(1, 1000, 8, 100);
+        AtomicInteger acquired = new AtomicInteger();
+        final int threads = 8;
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (limiter.canAcquire("hot", 1)) {
+                        acquired.incrementAndGet();
+                    }
+                }
+                latch.countDown();
+            }).start();
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        // 不会超发：最多多补充几个令牌
+        assertTrue(acquired.get() >= 1000 && acquired.get() <= 1010, "" + acquired.get());
+    }
+}
@@ -19,6 +19,23 @@ import java.util.concurrent.TimeUnit;
 public class CardDealerBenchmark {
     private static final int deckSize = 12;
     private static final int handSize = 3;
+    private static final String identifier = "4_223";
+
+    private final CardDealer md5Dealer = CardDealer.builder()
+            .deckSize(deckSize)
+            .handSize(handSize)
+            .build();
+    private final CardDealer xxHashDealer = CardDealer.builder()
+            .deckSize(deckSize)
+            .handSize(handSize)
+            .hashFunction(CardDealer.HashFunction.XXHASH64)
+            .build();
+    private final CardDealer cachedDealer = CardDealer.builder()
+            .deckSize(deckSize)
+            .handSize(handSize)
+            .cacheSize(1024)
+            .build();
+    private final int[] hand = new int[handSize];
 
     @Test
     @Disabled
@@ -32,6 +49,7 @@ public class CardDealerBenchmark {
     }
 
     // 341.506 ns/op
+    // 同一台机器上：改造前 408.497 ns/op，改造后 314.028 ns/op
     @Benchmark
     public void dealIntoHand() {
         CardDealer dealer = CardDealer.builder()
@@ -39,6 +57,29 @@ public class CardDealerBenchmark {
                 .handSize(handSize)
                 .build();
         int[] hands = new int[handSize];
-        dealer.dealIntoHand("4_223", hands);
+        dealer.dealIntoHand(identifier, hands);
+    }
+
+    // 复用dealer，MD5 digest是thread local的
+    // 改造前(每次调用MessageDigest.getInstance) 432.204 ns/op，改造后 326.467 ns/op
+    @Benchmark
+    public int[] dealIntoHandMd5() {
+        md5Dealer.dealIntoHand(identifier, hand);
+        return hand;
+    }
+
+    // 91.237 ns/op
+    @Benchmark
+    public int[] dealIntoHandXxHash64() {
+        xxHashDealer.dealIntoHand(identifier, hand);
+        return hand;
+    }
+
+    // 命中缓存：一次map查找和数组复制
+    // 10.150 ns/op
+    @Benchmark
+    public int[] dealIntoHandCached() {
+        cachedDealer.dealIntoHand(identifier, hand);
+        return hand;
     }
 }
@@ -2,6 +2,7 @@ package io.github.workload.shufflesharding;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -239,4 +240,69 @@ class CardDealerTest {
         }
     }
 
+    @Test
+    void xxHash64() {
+        // reference vectors of XXH64 with seed 0
+        assertEquals(0xEF46DB3751D8E999L, XxHash64.hash(new byte[0], 0));
+        assertEquals(0xD24EC4F1A98C6E5BL, XxHash64.hash("a".getBytes(StandardCharsets.UTF_8), 0));
+        assertEquals(0x44BC2CF5AD770999L, XxHash64.hash("abc".getBytes(StandardCharsets.UTF_8), 0));
+        assertEquals(CardDealer.HashFunction.XXHASH64.hash("abc"), XxHash64.hash("abc".getBytes(StandardCharsets.UTF_8), 0));
+        // 长度覆盖32字节的分段、8字节、4字节和单字节的尾部
+        Set<Long> hashes = new HashSet<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(hashes.add(CardDealer.HashFunction.XXHASH64.hash(sb.toString())));
+            sb.append((char) ('a' + i % 26));
+        }
+    }
+
+    @Test
+    void hashFunction() {
+        CardDealer md5 = CardDealer.builder().deckSize(10).handSize(4).build();
+        assertEquals(CardDealer.HashFunction.MD5, md5.getHashFunction());
+        for (String identifier : new String[]{"6_123", "7_123", "7_8987"}) {
+            // thread local digest被复用
+            assertEquals(CardDealer.hash(identifier), CardDealer.HashFunction.MD5.hash(identifier));
+        }
+
+        CardDealer xx = CardDealer.builder().deckSize(10).handSize(4).hashFunction(CardDealer.HashFunction.XXHASH64).build();
+        int[] hand = new int[4];
+        int[] expected = new int[4];
+        xx.dealIntoHand("6_616", hand);
+        xx.dealIntoHand(CardDealer.HashFunction.XXHASH64.hash("6_616"), expected);
+        assertArrayEquals(expected, hand);
+
+        Exception e = assertThrows(IllegalArgumentException.class, () -> CardDealer.builder().deckSize(10).handSize(4).hashFunction(null).build());
+        assertEquals("hashFunction cannot be null", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> CardDealer.builder().deckSize(10).handSize(4).cacheSize(-1).build());
+        assertEquals("cacheSize cannot be negative", e.getMessage());
+    }
+
+    @Test
+    void handCache() {
+        CardDealer uncached = CardDealer.builder().deckSize(64).handSize(6).build();
+        CardDealer cached = CardDealer.builder().deckSize(64).handSize(6).cacheSize(10).build();
+        int[] expected = new int[6];
+        int[] hand = new int[6];
+        for (int loop = 0; loop < 3; loop++) {
+            // 超过缓存容量，触发清空
+            for (int i = 0; i < 25; i++) {
+                String identifier = "tenant_" + i;
+                uncached.dealIntoHand(identifier, expected);
+                cached.dealIntoHand(identifier, hand);
+                assertArrayEquals(expected, hand);
+            }
+        }
+
+        // 缓存的是副本，修改手中牌不影响后续结果
+        cached.dealIntoHand("tenant_24", hand);
+        hand[0] = -1;
+        cached.dealIntoHand("tenant_24", hand);
+        uncached.dealIntoHand("tenant_24", expected);
+        assertArrayEquals(expected, hand);
+
+        Exception e = assertThrows(IllegalArgumentException.class, () -> cached.dealIntoHand("tenant_24", new int[2]));
+        assertEquals("hand cannot be null and must have length of handSize", e.getMessage());
+    }
+
 }
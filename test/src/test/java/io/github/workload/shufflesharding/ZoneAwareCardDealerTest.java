@@ -0,0 +1,140 @@
+package io.github.workload.shufflesharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZoneAwareCardDealerTest {
+
+    @Test
+    void builder() {
+        ZoneAwareCardDealer dealer = ZoneAwareCardDealer.builder().zones(3, 10).handSize(5).build();
+        assertEquals(3, dealer.zones());
+        assertEquals(30, dealer.getDeckSize());
+        // 向上取整为可用区数量的倍数
+        assertEquals(2, dealer.getHandSizePerZone());
+        assertEquals(6, dealer.getHandSize());
+
+        dealer = ZoneAwareCardDealer.builder().zoneSizes(4, 8, 6).handSize(3).build();
+        assertEquals(18, dealer.getDeckSize());
+        assertEquals(0, dealer.zoneOf(0));
+        assertEquals(0, dealer.zoneOf(3));
+        assertEquals(1, dealer.zoneOf(4));
+        assertEquals(1, dealer.zoneOf(11));
+        assertEquals(2, dealer.zoneOf(12));
+        assertEquals(2, dealer.zoneOf(17));
+        assertThrows(IllegalArgumentException.class, () -> ZoneAwareCardDealer.builder().zones(3, 10).handSize(3).build().zoneOf(30));
+
+        Exception e = assertThrows(IllegalArgumentException.class, () -> ZoneAwareCardDealer.builder().handSize(3).build());
+        assertEquals("zoneSizes cannot be empty", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> ZoneAwareCardDealer.builder().zones(3, 10).build());
+        assertEquals("handSize is not positive", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> ZoneAwareCardDealer.builder().zones(0, 10));
+        assertEquals("zones is not positive", e.getMessage());
+        // 某个可用区的牌不够
+        e = assertThrows(IllegalArgumentException.class, () -> ZoneAwareCardDealer.builder().zoneSizes(4, 1, 4).handSize(6).build());
+        assertEquals("handSize is greater than deckSize", e.getMessage());
+    }
+
+    @Test
+    void dealIntoHand() {
+        ZoneAwareCardDealer dealer = ZoneAwareCardDealer.builder().zoneSizes(10, 12, 8).handSize(6).build();
+        int[] hand = new int[6];
+        int[] again = new int[6];
+        Exception e = assertThrows(IllegalArgumentException.class, () -> dealer.dealIntoHand((String) null, hand));
+        assertEquals("identifier cannot be null", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> dealer.dealIntoHand("x", new int[3]));
+        assertEquals("hand cannot be null and must have length of handSize", e.getMessage());
+
+        for (int tenant = 0; tenant < 5000; tenant++) {
+            String identifier = "tenant_" + tenant;
+            dealer.dealIntoHand(identifier, hand);
+            Set<Integer> cards = new HashSet<>();
+            int[] perZone = new int[dealer.zones()];
+            for (int i = 0; i < hand.length; i++) {
+                final int zone = dealer.zoneOf(hand[i]);
+                // 按可用区排列
+                assertEquals(i / dealer.getHandSizePerZone(), zone);
+                perZone[zone]++;
+                assertTrue(cards.add(hand[i]));
+            }
+            // 每个可用区恰好分到相同数量的牌：一个可用区故障，租户仍有2/3的节点
+            for (int count : perZone) {
+                assertEquals(dealer.getHandSizePerZone(), count);
+            }
+
+            // 确定的
+            dealer.dealIntoHand(identifier, again);
+            assertArrayEquals(hand, again);
+        }
+    }
+
+    @Test
+    void zoneHash() {
+        // 各可用区的哈希值不同
+        Set<Long> hashes = new HashSet<>();
+        for (int z = 0; z < 8; z++) {
+            assertTrue(hashes.add(ZoneAwareCardDealer.zoneHash(0, z)));
+        }
+    }
+
+    @Test
+    void overlapMatchesFlatDealer() {
+        final int zones = 3;
+        final int zoneSize = 10;
+        final int handSize = 6;
+        final int tenants = 2000;
+        CardDealer flat = CardDealer.builder().deckSize(zones * zoneSize).handSize(handSize).build();
+        ZoneAwareCardDealer zoneAware = ZoneAwareCardDealer.builder().zones(zones, zoneSize).handSize(handSize).build();
+
+        long[] flatHands = new long[tenants];
+        long[] zoneAwareHands = new long[tenants];
+        int[] hand = new int[handSize];
+        for (int t = 0; t < tenants; t++) {
+            String identifier = "tenant_" + t;
+            flat.dealIntoHand(identifier, hand);
+            flatHands[t] = bitmap(hand);
+            zoneAware.dealIntoHand(identifier, hand);
+            zoneAwareHands[t] = bitmap(hand);
+        }
+
+        // 两两租户重叠的节点数
+        double flatSum = 0, zoneAwareSum = 0;
+        long pairs = 0, flatFullOverlaps = 0, zoneAwareFullOverlaps = 0;
+        for (int i = 0; i < tenants; i++) {
+            for (int j = i + 1; j < tenants; j++) {
+                final int flatOverlap = Long.bitCount(flatHands[i] & flatHands[j]);
+                final int zoneAwareOverlap = Long.bitCount(zoneAwareHands[i] & zoneAwareHands[j]);
+                flatSum += flatOverlap;
+                zoneAwareSum += zoneAwareOverlap;
+                if (flatOverlap == handSize) {
+                    flatFullOverlaps++;
+                }
+                if (zoneAwareOverlap == handSize) {
+                    zoneAwareFullOverlaps++;
+                }
+                pairs++;
+            }
+        }
+
+        // 期望重叠数 handSize² / deckSize = 1.2
+        final double expected = (double) handSize * handSize / (zones * zoneSize);
+        assertEquals(expected, flatSum / pairs, 0.05);
+        assertEquals(expected, zoneAwareSum / pairs, 0.05);
+        assertEquals(flatSum / pairs, zoneAwareSum / pairs, 0.05);
+        // 完全重叠的概率：flat 1/C(30,6)，zone-aware 1/C(10,2)³，都极小
+        assertTrue(flatFullOverlaps <= pairs / 10_000);
+        assertTrue(zoneAwareFullOverlaps <= pairs / 10_000);
+    }
+
+    private static long bitmap(int[] hand) {
+        long bits = 0;
+        for (int card : hand) {
+            bits |= 1L << card;
+        }
+        return bits;
+    }
+}
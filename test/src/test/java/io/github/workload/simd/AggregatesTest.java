@@ -0,0 +1,71 @@
+package io.github.workload.simd;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AggregatesTest {
+
+    @Test
+    void sameAsJdkStreams() {
+        Random random = new Random(7);
+        for (int n : new int[]{1, 2, 3, 4, 5, 7, 8, 9, 100, 1023}) {
+            long[] longs = random.longs(n).toArray();
+            assertEquals(Arrays.stream(longs).sum(), Aggregates.sum(longs));
+            assertEquals(Arrays.stream(longs).min(), Aggregates.min(longs));
+            assertEquals(Arrays.stream(longs).max(), Aggregates.max(longs));
+            assertEquals(Arrays.stream(longs).average().getAsDouble(), Aggregates.average(longs).getAsDouble(), 1e-6 * Math.abs(Arrays.stream(longs).average().getAsDouble()) + 1);
+
+            int[] ints = random.ints(n, -1000, 1000).toArray();
+            assertEquals(Arrays.stream(ints).asLongStream().sum(), Aggregates.sum(ints));
+            assertEquals(Arrays.stream(ints).min(), Aggregates.min(ints));
+            assertEquals(Arrays.stream(ints).max(), Aggregates.max(ints));
+            assertEquals(Arrays.stream(ints).average(), Aggregates.average(ints));
+
+            double[] doubles = random.doubles(n).toArray();
+            assertEquals(Arrays.stream(doubles).sum(), Aggregates.sum(doubles), 1e-9);
+            assertEquals(Arrays.stream(doubles).min(), Aggregates.min(doubles));
+            assertEquals(Arrays.stream(doubles).max(), Aggregates.max(doubles));
+            assertEquals(Arrays.stream(doubles).average().getAsDouble(), Aggregates.average(doubles).getAsDouble(), 1e-9);
+        }
+    }
+
+    @Test
+    void compensatedDoubleSum() {
+        Random random = new Random(7);
+        double[] doubles = new double[10_003];
+        BigDecimal exact = BigDecimal.ZERO;
+        for (int i = 0; i < doubles.length; i++) {
+            // 量级差异很大：朴素求和会丢失小数值
+            doubles[i] = random.nextBoolean() ? random.nextDouble() * 1e8 : random.nextDouble() * 1e-8;
+            exact = exact.add(new BigDecimal(doubles[i]));
+        }
+        final double expected = exact.doubleValue();
+        assertEquals(expected, Aggregates.sum(doubles), 2 * Math.ulp(expected));
+        assertEquals(expected / doubles.length, Aggregates.average(doubles).getAsDouble(), 2 * Math.ulp(expected / doubles.length));
+
+        assertEquals(Double.POSITIVE_INFINITY, Aggregates.sum(new double[]{1, Double.POSITIVE_INFINITY, 3, Double.POSITIVE_INFINITY, 5}));
+        assertEquals(Double.POSITIVE_INFINITY, Aggregates.sum(new double[]{Double.MAX_VALUE, Double.MAX_VALUE}));
+        assertTrue(Double.isNaN(Aggregates.sum(new double[]{Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY})));
+        assertTrue(Double.isNaN(Aggregates.sum(new double[]{1, Double.NaN})));
+    }
+
+    @Test
+    void edgeCases() {
+        assertEquals(0, Aggregates.sum(new long[0]));
+        assertFalse(Aggregates.min(new long[0]).isPresent());
+        assertFalse(Aggregates.max(new int[0]).isPresent());
+        assertFalse(Aggregates.average(new double[0]).isPresent());
+
+        // int求和不溢出
+        assertEquals(2L * Integer.MAX_VALUE, Aggregates.sum(new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE}));
+        // long求和溢出时回绕，与LongStream一致
+        assertEquals(Long.MIN_VALUE, Aggregates.sum(new long[]{Long.MAX_VALUE, 1}));
+        assertTrue(Double.isNaN(Aggregates.max(new double[]{1, Double.NaN, 3, 4, 5}).getAsDouble()));
+        assertThrows(NullPointerException.class, () -> Aggregates.sum((long[]) null));
+    }
+}
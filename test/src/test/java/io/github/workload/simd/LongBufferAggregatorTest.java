@@ -0,0 +1,104 @@
+package io.github.workload.simd;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongBufferAggregatorTest {
+
+    @Test
+    void directBuffer() {
+        long[] values = new Random(3).longs(1001).toArray();
+        LongBuffer buffer = OffHeapLongs.allocateDirect(values.length);
+        buffer.put(values).flip();
+        assertTrue(buffer.isDirect());
+
+        for (LongBufferAggregator aggregator : new LongBufferAggregator[]{LongBufferAggregator.getDefault(), LongBufferAggregator.java()}) {
+            assertEquals(Arrays.stream(values).sum(), aggregator.sum(buffer));
+            assertEquals(Arrays.stream(values).min(), aggregator.min(buffer));
+            assertEquals(Arrays.stream(values).max(), aggregator.max(buffer));
+
+            // 只聚合[position, limit)，不改变position
+            buffer.position(10).limit(20);
+            assertEquals(Arrays.stream(values, 10, 20).max(), aggregator.max(buffer));
+            assertEquals(Arrays.stream(values, 10, 20).sum(), aggregator.sum(buffer));
+            assertEquals(10, buffer.position());
+            buffer.clear();
+
+            assertFalse(aggregator.max(LongBuffer.allocate(0)).isPresent());
+        }
+    }
+
+    @Test
+    void oddRangeInTheMiddle() {
+        // 范围外的邻居都比范围内的大：越界读取会把它们算进max
+        long[] values = new long[64];
+        Arrays.fill(values, Long.MAX_VALUE);
+        LongBuffer buffer = OffHeapLongs.allocateDirect(values.length);
+        buffer.put(values).clear();
+        for (int from = 1; from < 8; from++) {
+            for (int length = 1; length <= 11; length += 2) {
+                for (int i = 0; i < length; i++) {
+                    buffer.put(from + i, i - 100);
+                }
+                buffer.position(from).limit(from + length);
+                for (LongBufferAggregator aggregator : new LongBufferAggregator[]{LongBufferAggregator.getDefault(), LongBufferAggregator.java()}) {
+                    assertEquals(length - 101, aggregator.max(buffer).getAsLong(), "from=" + from + ",length=" + length);
+                }
+                buffer.clear();
+                for (int i = 0; i < length; i++) {
+                    buffer.put(from + i, Long.MAX_VALUE);
+                }
+            }
+        }
+    }
+
+    @Test
+    void heapAndForeignOrder() {
+        LongBuffer heap = LongBuffer.wrap(new long[]{5, -3, 8, 1, 0});
+        assertEquals(8, LongBufferAggregator.getDefault().max(heap).getAsLong());
+        assertEquals(-3, LongBufferAggregator.getDefault().min(heap).getAsLong());
+
+        ByteOrder foreign = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        LongBuffer buffer = ByteBuffer.allocateDirect(3 * Long.BYTES).order(foreign).asLongBuffer();
+        buffer.put(new long[]{7, 70, -7}).flip();
+        assertEquals(70, LongBufferAggregator.getDefault().max(buffer).getAsLong());
+    }
+
+    @Test
+    void mappedFile() throws IOException {
+        Path file = Files.createTempFile("longs", ".bin");
+        try {
+            ByteBuffer bytes = ByteBuffer.allocate(100 * Long.BYTES).order(ByteOrder.nativeOrder());
+            for (long i = 0; i < 100; i++) {
+                bytes.putLong(i * i);
+            }
+            bytes.flip();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(bytes);
+            }
+
+            LongBuffer mapped = OffHeapLongs.map(file);
+            assertEquals(100, mapped.remaining());
+            assertEquals(99 * 99, LongBufferAggregator.getDefault().max(mapped).getAsLong());
+            assertEquals(0, LongBufferAggregator.getDefault().min(mapped).getAsLong());
+
+            Files.write(file, new byte[7]);
+            assertThrows(IllegalArgumentException.class, () -> OffHeapLongs.map(file));
+        } finally {
+            Files.delete(file);
+        }
+        assertThrows(IllegalArgumentException.class, () -> OffHeapLongs.allocateDirect(-1));
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.workload.simd;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 增强的数组入口与JDK流的对比.
+ *
+ * <p>100M个long需要800MB，fork的JVM需要足够的堆.</p>
+ */
+@BenchmarkMode(value = Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class StreamEnhancerBenchmark {
+
+    @Param({"1000", "100000", "10000000", "100000000"})
+    private int size;
+
+    private long[] longs;
+    private int[] ints;
+    private double[] doubles;
+
+    @Test
+    @Disabled
+    void main() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StreamEnhancerBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.TEXT)
+                .result("StreamEnhancer.bench")
+                .build();
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(size);
+        longs = random.longs(size).toArray();
+        ints = random.ints(size).toArray();
+        doubles = random.doubles(size).toArray();
+    }
+
+    // 拦截LongStream(物化为long[]再聚合)时，与本case对比(us/op)：
+    // size=1000: 3.230 vs 2.232; size=100000: 324.450 vs 220.658; size=10000000: 50832.961 vs 15528.834
+    // 因此原始类型的流不再被拦截
+    @Benchmark
+    public long jdkLongMax() {
+        return Arrays.stream(longs).max().getAsLong();
+    }
+
+    @Benchmark
+    public long enhancedLongArrayMax() {
+        return StreamEnhancer.enhance(longs).max().getAsLong();
+    }
+
+    @Benchmark
+    public long jdkLongSum() {
+        return Arrays.stream(longs).sum();
+    }
+
+    @Benchmark
+    public long enhancedLongArraySum() {
+        return StreamEnhancer.enhance(longs).sum();
+    }
+
+    // 拦截装箱流(物化+拆箱+JNI max)时，与本case对比(us/op)：
+    // size=1000: 25.588 vs 8.496; size=100000: 1777.351 vs 1461.958; size=10000000: 387535.868 vs 145720.216
+    // 因此装箱流不再被拦截
+    @Benchmark
+    public long jdkBoxedLongMax() {
+        return Arrays.stream(longs).boxed().max(Long::compare).get();
+    }
+
+    @Benchmark
+    public int jdkIntSum() {
+        return Arrays.stream(ints).sum();
+    }
+
+    @Benchmark
+    public int enhancedIntArraySum() {
+        return StreamEnhancer.enhance(ints).sum();
+    }
+
+    @Benchmark
+    public int jdkIntMin() {
+        return Arrays.stream(ints).min().getAsInt();
+    }
+
+    @Benchmark
+    public int enhancedIntArrayMin() {
+        return StreamEnhancer.enhance(ints).min().getAsInt();
+    }
+
+    @Benchmark
+    public double jdkDoubleSum() {
+        return Arrays.stream(doubles).sum();
+    }
+
+    @Benchmark
+    public double enhancedDoubleArraySum() {
+        return StreamEnhancer.enhance(doubles).sum();
+    }
+}
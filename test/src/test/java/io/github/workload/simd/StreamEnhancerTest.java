@@ -6,9 +6,15 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 class StreamEnhancerTest {
 
@@ -38,4 +44,65 @@ class StreamEnhancerTest {
         assertEquals(25L, maxId);
     }
 
-}
\ No newline at end of file
+    @Test
+    void terminalOperations() {
+        List<Long> numbers = Arrays.asList(10L, 5L, 15L, 20L, 3L, 8L, 25L);
+        // 装箱的流原样返回
+        Stream<Long> stream = numbers.stream();
+        assertSame(stream, StreamEnhancer.enhance(stream));
+        assertEquals(Optional.of(25L), StreamEnhancer.enhance(numbers.stream()).max(Comparator.naturalOrder()));
+        assertEquals(Optional.of(3L), StreamEnhancer.enhance(numbers.stream()).min(Comparator.naturalOrder()));
+        assertEquals(7, StreamEnhancer.enhance(numbers.stream()).count());
+
+        List<Integer> ints = Arrays.asList(3, -1, 9);
+        assertEquals(Optional.of(9), StreamEnhancer.enhance(ints.stream()).max(Comparator.naturalOrder()));
+        // 自定义比较器不增强
+        assertEquals(Optional.of(-1), StreamEnhancer.enhance(ints.stream()).max(Comparator.reverseOrder()));
+
+        // 不能增强的类型回退到原始语义
+        assertEquals(Optional.of("b"), StreamEnhancer.enhance(Stream.of("a", "b")).max(Comparator.naturalOrder()));
+        assertEquals(Optional.of(Double.NaN), StreamEnhancer.enhance(Stream.of(1d, Double.NaN)).max(Comparator.naturalOrder()));
+        assertFalse(StreamEnhancer.enhance(Stream.<Long>empty()).max(Comparator.naturalOrder()).isPresent());
+        assertEquals(0, StreamEnhancer.enhance(Stream.empty()).count());
+    }
+
+    @Test
+    void primitiveStreams() {
+        // 原始类型的流原样返回
+        LongStream stream = LongStream.rangeClosed(1, 10);
+        assertSame(stream, StreamEnhancer.enhance(stream));
+        assertEquals(55, StreamEnhancer.enhance(LongStream.rangeClosed(1, 10)).sum());
+        assertEquals(10, StreamEnhancer.enhance(LongStream.rangeClosed(1, 10)).max().getAsLong());
+        assertEquals(5.5, StreamEnhancer.enhance(LongStream.rangeClosed(1, 10)).average().getAsDouble());
+        // 增强的终端操作之前可以有中间操作，但中间操作返回的是原始的流
+        assertEquals(2, StreamEnhancer.enhance(IntStream.of(5, -2, 9)).map(x -> x * 2).filter(x -> x > 0).count());
+        assertEquals(-2, StreamEnhancer.enhance(IntStream.of(5, -2, 9)).min().getAsInt());
+        // 与IntStream.sum()一致：溢出时回绕
+        assertEquals(IntStream.of(Integer.MAX_VALUE, 1).sum(), StreamEnhancer.enhance(IntStream.of(Integer.MAX_VALUE, 1)).sum());
+        assertEquals(3.5, StreamEnhancer.enhance(DoubleStream.of(1.5, 2)).sum());
+        assertFalse(StreamEnhancer.enhance(DoubleStream.empty()).max().isPresent());
+    }
+
+    @Test
+    void arrays() {
+        long[] longs = {3, 1, 4, 1, 5, 9, 2, 6};
+        assertEquals(31, StreamEnhancer.enhance(longs).sum());
+        assertEquals(9, StreamEnhancer.enhance(longs).max().getAsLong());
+        assertEquals(8, StreamEnhancer.enhance(longs).count());
+        // 非聚合操作透传
+        assertArrayEquals(new long[]{1, 1, 2, 3, 4, 5, 6, 9}, StreamEnhancer.enhance(longs).sorted().toArray());
+
+        assertEquals(1, StreamEnhancer.enhance(new int[]{3, 1, 2}).min().getAsInt());
+        assertEquals(2.0, StreamEnhancer.enhance(new double[]{1, 2, 3}).average().getAsDouble());
+        assertEquals(0, StreamEnhancer.enhance(new double[0]).count());
+
+        // 与普通的流一样只能被操作一次
+        LongStream enhanced = StreamEnhancer.enhance(longs);
+        assertEquals(31, enhanced.sum());
+        assertThrows(IllegalStateException.class, enhanced::max);
+        LongStream sorted = StreamEnhancer.enhance(longs);
+        sorted.sorted();
+        assertThrows(IllegalStateException.class, sorted::count);
+    }
+
+}
@@ -8,11 +8,13 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
 
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,6 +29,161 @@ class HedgedRequestTest {
     @AfterEach
     void resetCounter() {
         MockService.counter.set(0);
+        HedgeCallSite.resetForTesting();
+    }
+
+    @Test
+    void adaptive() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        final String name = "adaptive";
+        final AtomicInteger invocations = new AtomicInteger();
+        Callable<String> slow = () -> {
+            invocations.incrementAndGet();
+            TimeUnit.MILLISECONDS.sleep(100);
+            return "ok";
+        };
+
+        // 样本不足：不对冲
+        assertEquals(-1, HedgeCallSite.of("cold").deferMs());
+        assertEquals("ok", new HedgedRequest<String>("cold", executor).call(slow).get(1, TimeUnit.SECONDS));
+        assertEquals(1, invocations.get());
+
+        // 学习到TP95约为10ms
+        HedgeCallSite callSite = HedgeCallSite.of(name);
+        for (int i = 0; i < 100; i++) {
+            callSite.recordLatency(10);
+        }
+        assertEquals(10, callSite.deferMs());
+
+        // 对冲预算：攒够2次对冲
+        for (int i = 0; i < 38; i++) {
+            callSite.recordRequest();
+        }
+        invocations.set(0);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(new HedgedRequest<String>(name, executor).call(slow));
+        }
+        for (CompletableFuture<String> future : futures) {
+            assertEquals("ok", future.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(3 + 2, invocations.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void adaptive_samplesOriginalsOnly() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        final String name = "samplesOriginalsOnly";
+        HedgeCallSite callSite = HedgeCallSite.of(name);
+        for (int i = 0; i < 100; i++) {
+            callSite.recordLatency(10);
+        }
+        assertEquals(10, callSite.deferMs());
+
+        // 原始请求总是很慢，对冲请求总是胜出
+        HedgedRequest<String> request = new HedgedRequest<>(name, executor);
+        for (int i = 0; i < 40; i++) {
+            for (int j = 0; j < 20; j++) {
+                callSite.recordRequest();
+            }
+            final AtomicInteger invocations = new AtomicInteger();
+            assertEquals("hedged", request.call(() -> {
+                if (invocations.incrementAndGet() == 1) {
+                    TimeUnit.SECONDS.sleep(5);
+                    return "original";
+                }
+                TimeUnit.MILLISECONDS.sleep(5);
+                return "hedged";
+            }).get(1, TimeUnit.SECONDS));
+        }
+        TimeUnit.MILLISECONDS.sleep(20);
+        // 落败的原始请求以取消时已执行的时长采样，分位数不会被胜出的对冲请求拉低
+        assertTrue(callSite.deferMs() > 10);
+        executor.shutdown();
+    }
+
+    @Test
+    void fastOriginalCancelsHedge() throws Exception {
+        final AtomicInteger invocations = new AtomicInteger();
+        HedgedRequest<Integer> request = new HedgedRequest<>(50, HedgedRequest.virtualThreadExecutor());
+        assertEquals(1, request.call(invocations::incrementAndGet).get(1, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(1, invocations.get());
+    }
+
+    @Test
+    void loserInterrupted() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        final AtomicInteger invocations = new AtomicInteger();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final CountDownLatch loserStopped = new CountDownLatch(1);
+        HedgedRequest<String> request = new HedgedRequest<>(20, executor);
+        HedgeMetrics metrics = request.metrics();
+        final long hedges = metrics.hedges();
+        final long cancelled = metrics.cancelled();
+        final long wastedRuns = metrics.wastedRuns();
+        CompletableFuture<String> future = request.call(() -> {
+            if (invocations.incrementAndGet() == 1) {
+                // 原始请求很慢
+                try {
+                    TimeUnit.SECONDS.sleep(5);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                    throw e;
+                } finally {
+                    loserStopped.countDown();
+                }
+                return "original";
+            }
+            return "hedged";
+        });
+        assertEquals("hedged", future.get(1, TimeUnit.SECONDS));
+        assertTrue(loserStopped.await(1, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+        TimeUnit.MILLISECONDS.sleep(20);
+        assertEquals(hedges + 1, metrics.hedges());
+        assertEquals(cancelled + 1, metrics.cancelled());
+        assertEquals(wastedRuns + 1, metrics.wastedRuns());
+
+        // 中断标记不会泄漏到线程池的后续任务
+        for (int i = 0; i < 4; i++) {
+            assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void cooperativeCancellation() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        final AtomicInteger invocations = new AtomicInteger();
+        final CountDownLatch loserStopped = new CountDownLatch(1);
+        HedgedRequest<Integer> request = new HedgedRequest<>(10, executor);
+        CompletableFuture<Integer> future = request.call(token -> {
+            final int nth = invocations.incrementAndGet();
+            if (nth == 1) {
+                // 不响应中断的计算任务，周期性地检查令牌
+                while (!token.isCancelled()) {
+                    Thread.yield();
+                }
+                loserStopped.countDown();
+                token.throwIfCancelled();
+            }
+            return nth;
+        });
+        assertEquals(2, future.get(1, TimeUnit.SECONDS));
+        assertTrue(loserStopped.await(1, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(20);
+        assertTrue(request.metrics().wasteRatio() > 0);
+        executor.shutdown();
+    }
+
+    @Test
+    void rejected() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        CompletableFuture<String> future = new HedgedRequest<String>(10, executor).call(() -> "ok");
+        assertTrue(future.isCompletedExceptionally());
     }
 
     @RepeatedTest(10)
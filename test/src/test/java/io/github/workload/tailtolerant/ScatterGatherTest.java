@@ -0,0 +1,197 @@
+package io.github.workload.tailtolerant;
+
+import io.github.workload.tailtolerant.HedgedRequest.CancellableTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScatterGatherTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void allComplete() throws Exception {
+        List<CancellableTask<Integer>> leaves = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final int shard = i;
+            leaves.add(token -> shard * 10);
+        }
+        ScatterGather.Gathered<Integer> gathered = new ScatterGather<Integer>(1000, 0, executor).scatter(leaves).get(1, TimeUnit.SECONDS);
+        assertTrue(gathered.isComplete());
+        assertEquals(1, gathered.completeness(), 0.0001);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i * 10, gathered.getValues().get(i));
+        }
+    }
+
+    @Test
+    void partialResultsOnDeadline() throws Exception {
+        final CountDownLatch stragglersInterrupted = new CountDownLatch(2);
+        List<CancellableTask<Integer>> leaves = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final int shard = i;
+            leaves.add(token -> {
+                if (shard == 3 || shard == 7) {
+                    try {
+                        TimeUnit.SECONDS.sleep(5);
+                    } catch (InterruptedException e) {
+                        stragglersInterrupted.countDown();
+                        throw e;
+                    }
+                }
+                if (shard == 9) {
+                    throw new IllegalStateException("shard down");
+                }
+                return shard;
+            });
+        }
+
+        ScatterGather<Integer> scatterGather = new ScatterGather<>(100, 0, executor);
+        final long startNs = System.nanoTime();
+        ScatterGather.Gathered<Integer> gathered = scatterGather.scatter(leaves).get(1, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs) < 500);
+        assertFalse(gathered.isComplete());
+        assertEquals(7, gathered.getSucceeded());
+        assertEquals(1, gathered.getFailed());
+        assertEquals(0.7, gathered.completeness(), 0.0001);
+        assertNull(gathered.getValues().get(3));
+        assertNull(gathered.getValues().get(7));
+        assertNull(gathered.getValues().get(9));
+        assertEquals(8, gathered.getValues().get(8));
+
+        // 截止时间到达后，仍在执行的叶子被取消
+        assertTrue(stragglersInterrupted.await(1, TimeUnit.SECONDS));
+        assertEquals(2, scatterGather.getMetrics().cancelled());
+    }
+
+    @Test
+    void deadlineNotCompletedOnTimerThread() throws Exception {
+        List<CancellableTask<Integer>> leaves = Collections.singletonList(token -> {
+            TimeUnit.SECONDS.sleep(5);
+            return 1;
+        });
+        CompletableFuture<String> completedBy = new ScatterGather<Integer>(50, 0, executor).scatter(leaves)
+                .thenApply(gathered -> Thread.currentThread().getName());
+        // 调用方的后续处理不在共享的时间轮线程上执行
+        assertFalse(completedBy.get(1, TimeUnit.SECONDS).startsWith(HedgedRequest.class.getSimpleName() + "-timer"));
+    }
+
+    @Test
+    void deadlineEnforcedWhileLeavesQueued() throws Exception {
+        // 只有1个线程：叶子在线程池里排队
+        ExecutorService singleThread = Executors.newFixedThreadPool(1);
+        List<CancellableTask<Integer>> leaves = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            leaves.add(token -> {
+                TimeUnit.SECONDS.sleep(2);
+                return 1;
+            });
+        }
+        final long startNs = System.nanoTime();
+        ScatterGather.Gathered<Integer> gathered = new ScatterGather<Integer>(100, 0, singleThread).scatter(leaves).get(3, TimeUnit.SECONDS);
+        // 聚合结果不排在叶子后面
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs) < 500);
+        assertEquals(0, gathered.getSucceeded());
+        singleThread.shutdownNow();
+    }
+
+    @Test
+    void leafDeadline() throws Exception {
+        final CountDownLatch slowInterrupted = new CountDownLatch(1);
+        List<CancellableTask<Integer>> leaves = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final int shard = i;
+            leaves.add(token -> {
+                if (shard == 1) {
+                    try {
+                        TimeUnit.SECONDS.sleep(5);
+                    } catch (InterruptedException e) {
+                        slowInterrupted.countDown();
+                        throw e;
+                    }
+                }
+                return shard;
+            });
+        }
+
+        final long startNs = System.nanoTime();
+        ScatterGather.Gathered<Integer> gathered = new ScatterGather<Integer>(2000, 100, 0, executor).scatter(leaves).get(1, TimeUnit.SECONDS);
+        // 慢叶子超过叶子截止时间后按失败处理，不必等到全局截止时间
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs) < 1000);
+        assertEquals(2, gathered.getSucceeded());
+        assertEquals(1, gathered.getFailed());
+        assertNull(gathered.getValues().get(1));
+        assertTrue(slowInterrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void hedgeSlowest() throws Exception {
+        final AtomicInteger slowShardCalls = new AtomicInteger();
+        List<CancellableTask<Integer>> leaves = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final int shard = i;
+            leaves.add(token -> {
+                if (shard == 5 && slowShardCalls.incrementAndGet() == 1) {
+                    // 原始请求遇到了慢节点
+                    TimeUnit.SECONDS.sleep(5);
+                }
+                return shard;
+            });
+        }
+
+        ScatterGather<Integer> scatterGather = new ScatterGather<>(2000, 0.2, executor);
+        final long startNs = System.nanoTime();
+        ScatterGather.Gathered<Integer> gathered = scatterGather.scatter(leaves).get(3, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs) < 1000);
+        assertTrue(gathered.isComplete());
+        assertEquals(2, slowShardCalls.get());
+        assertTrue(scatterGather.getMetrics().hedges() >= 1);
+        assertTrue(scatterGather.getMetrics().hedges() <= 2);
+    }
+
+    @Test
+    void hedgeFewLeaves() throws Exception {
+        for (int n = 1; n <= 2; n++) {
+            final AtomicInteger slowShardCalls = new AtomicInteger();
+            List<CancellableTask<Integer>> leaves = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                final int shard = i;
+                leaves.add(token -> {
+                    if (shard == 0 && slowShardCalls.incrementAndGet() == 1) {
+                        TimeUnit.SECONDS.sleep(5);
+                    }
+                    return shard;
+                });
+            }
+
+            // n=1：ceil(0.2)=1，阈值为0，立即对冲；n=2：1个叶子完成后对冲另一个
+            ScatterGather<Integer> scatterGather = new ScatterGather<>(2000, 0.2, executor);
+            ScatterGather.Gathered<Integer> gathered = scatterGather.scatter(leaves).get(1, TimeUnit.SECONDS);
+            assertTrue(gathered.isComplete(), "n=" + n);
+            assertEquals(2, slowShardCalls.get());
+            assertEquals(1, scatterGather.getMetrics().hedges());
+        }
+    }
+
+    @Test
+    void edgeCases() throws Exception {
+        ScatterGather.Gathered<Integer> gathered = new ScatterGather<Integer>(10).scatter(Collections.emptyList()).get(1, TimeUnit.SECONDS);
+        assertTrue(gathered.isComplete());
+        assertEquals(1, gathered.completeness(), 0.0001);
+
+        assertThrows(IllegalArgumentException.class, () -> new ScatterGather<Integer>(0));
+        assertThrows(IllegalArgumentException.class, () -> new ScatterGather<Integer>(10, 1, executor));
+        assertThrows(IllegalArgumentException.class, () -> new ScatterGather<Integer>(10, -1, 0, executor));
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.workload.tailtolerant;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingQuantileTest {
+
+    @Test
+    void uniform() {
+        StreamingQuantile p95 = new StreamingQuantile(0.95);
+        assertEquals(0, p95.samples());
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            p95.add(random.nextInt(100));
+        }
+        assertEquals(100_000, p95.samples());
+        assertEquals(95, p95.estimate(), 5);
+    }
+
+    @Test
+    void trackDrift() {
+        StreamingQuantile p50 = new StreamingQuantile(0.5);
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            p50.add(10 + random.nextInt(10));
+        }
+        assertEquals(15, p50.estimate(), 2);
+
+        // 延迟整体变慢
+        for (int i = 0; i < 10_000; i++) {
+            p50.add(100 + random.nextInt(10));
+        }
+        assertEquals(105, p50.estimate(), 5);
+    }
+
+    @Test
+    void invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new StreamingQuantile(0));
+        assertThrows(IllegalArgumentException.class, () -> new StreamingQuantile(1));
+    }
+}
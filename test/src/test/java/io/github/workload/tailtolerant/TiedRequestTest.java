@@ -0,0 +1,163 @@
+package io.github.workload.tailtolerant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TiedRequestTest {
+    private final TiedRequest<Integer, String> tiedRequest = new TiedRequest<>();
+
+    @AfterEach
+    void tearDown() {
+        InProcessReplica.resetForTesting();
+    }
+
+    private static String sleep(int ms) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ms);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        return "slept " + ms;
+    }
+
+    private static TiedReplica<Integer, String> replica(String id, BiFunction<Tie, Integer, CompletableFuture<String>> submit) {
+        return new TiedReplica<Integer, String>() {
+            @Override
+            public String id() {
+                return id;
+            }
+
+            @Override
+            public CompletableFuture<String> submit(Tie tie, Integer request) {
+                return submit.apply(tie, request);
+            }
+        };
+    }
+
+    @Test
+    void backloggedReplica() throws Exception {
+        InProcessReplica<Integer, String> a = new InProcessReplica<>("a", 1, TiedRequestTest::sleep);
+        InProcessReplica<Integer, String> b = new InProcessReplica<>("b", 1, TiedRequestTest::sleep);
+        // a 的队列有积压
+        CompletableFuture<String> backlog = a.submit(new Tie(-1, "nobody"), 300);
+
+        final long startNs = System.nanoTime();
+        assertEquals("slept 10", tiedRequest.call(10, a, b).get(1, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs) < 250);
+
+        backlog.get(1, TimeUnit.SECONDS);
+        TimeUnit.MILLISECONDS.sleep(50);
+        // 只有b执行了绑定请求，a出队时丢弃了它
+        assertEquals(1, a.executed());
+        assertEquals(1, a.dropped());
+        assertEquals(1, b.executed());
+        assertEquals(0, b.dropped());
+    }
+
+    @Test
+    void fanOut() throws Exception {
+        InProcessReplica<Integer, String> a = new InProcessReplica<>("a", 2, TiedRequestTest::sleep);
+        InProcessReplica<Integer, String> b = new InProcessReplica<>("b", 2, TiedRequestTest::sleep);
+        final int N = 100;
+        List<CompletableFuture<String>> futures = new ArrayList<>(N);
+        for (int i = 0; i < N; i++) {
+            futures.add(i % 2 == 0 ? tiedRequest.call(1, a, b) : tiedRequest.call(1, b, a));
+        }
+        for (CompletableFuture<String> future : futures) {
+            assertEquals("slept 1", future.get(5, TimeUnit.SECONDS));
+        }
+        TimeUnit.MILLISECONDS.sleep(50);
+        // 每个绑定请求要么被执行要么被丢弃
+        assertEquals(2 * N, a.executed() + a.dropped() + b.executed() + b.dropped());
+        assertTrue(a.executed() + b.executed() >= N);
+        assertTrue(a.dropped() + b.dropped() > 0);
+    }
+
+    @Test
+    void failsOnlyWhenBothReplicasFail() throws Exception {
+        // 两个副本都发送失败
+        CompletableFuture<String> bothRejected = tiedRequest.call(1, replica("x", (tie, request) -> {
+            throw new IllegalStateException("x down");
+        }), replica("y", (tie, request) -> {
+            throw new IllegalStateException("y down");
+        }));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> bothRejected.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+
+        // 一个副本执行失败，另一个副本仍然可以成功
+        CompletableFuture<String> late = new CompletableFuture<>();
+        CompletableFuture<String> oneFailed = tiedRequest.call(1, replica("x", (tie, request) -> {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("x failed"));
+            return failed;
+        }), replica("y", (tie, request) -> late));
+        assertFalse(oneFailed.isDone());
+        late.complete("ok");
+        assertEquals("ok", oneFailed.get(1, TimeUnit.SECONDS));
+
+        // 一个副本发送失败，另一个副本执行失败
+        CompletableFuture<String> bothFailed = tiedRequest.call(1, replica("x", (tie, request) -> {
+            throw new IllegalStateException("x down");
+        }), replica("y", (tie, request) -> {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalArgumentException("y failed"));
+            return failed;
+        }));
+        assertThrows(ExecutionException.class, () -> bothFailed.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void executedReplicaFailsAndPeerDropped() throws Exception {
+        InProcessReplica<Integer, String> a = new InProcessReplica<>("a", 1, request -> {
+            throw new IllegalStateException("a failed");
+        });
+        InProcessReplica<Integer, String> b = new InProcessReplica<>("b", 1, TiedRequestTest::sleep);
+        // b 的队列有积压，a 先出队执行并让 b 丢弃
+        b.submit(new Tie(-1, "nobody"), 200);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> tiedRequest.call(1, a, b).get(1, TimeUnit.SECONDS));
+        // 返回执行失败的原因，而不是丢弃
+        assertEquals("a failed", e.getCause().getMessage());
+    }
+
+    @Test
+    void hook() {
+        List<Long> cancelled = new ArrayList<>();
+        TiedQueueHook hook = new TiedQueueHook("a", (replicaId, requestId) -> {
+            assertEquals("b", replicaId);
+            cancelled.add(requestId);
+        });
+        Tie t1 = new Tie(1, "b");
+        Tie t2 = new Tie(2, "b");
+        hook.onEnqueue(t1);
+        hook.onEnqueue(t2);
+        assertEquals(2, hook.pendingSize());
+
+        assertTrue(hook.tryStart(t1));
+        assertEquals(1, cancelled.size());
+        assertEquals(1L, cancelled.get(0));
+
+        hook.onCancel(2);
+        assertFalse(hook.tryStart(t2));
+        assertEquals(1, cancelled.size());
+
+        // 迟到的取消消息不会留下状态
+        hook.onCancel(3);
+        assertEquals(0, hook.pendingSize());
+    }
+
+    @Test
+    void invalid() {
+        InProcessReplica<Integer, String> a = new InProcessReplica<>("a", 1, TiedRequestTest::sleep);
+        assertThrows(IllegalArgumentException.class, () -> tiedRequest.call(1, a, a));
+        assertThrows(IllegalArgumentException.class, () -> new InProcessReplica<Integer, String>("a", 1, TiedRequestTest::sleep));
+    }
+}
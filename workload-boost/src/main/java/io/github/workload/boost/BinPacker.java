@@ -0,0 +1,280 @@
+package io.github.workload.boost;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 二维(重量+体积)装箱：把物品装入尽量少的箱子，每个箱子的重量和体积都不超过上限.
+ *
+ * <ul>策略：物品先按主导尺寸(重量、体积各自占上限的比例的较大者)降序排列，再依次装箱
+ * <li>{@link Strategy#FIRST_FIT_DECREASING}：装入第一个放得下的箱子，线段树维护各箱子的剩余容量，O(log n)找到最左边放得下的箱子</li>
+ * <li>{@link Strategy#BEST_FIT_DECREASING}：装入剩余重量最少且放得下的箱子，有序集合按剩余重量查找</li>
+ * </ul>
+ * <ul>复杂度：
+ * <li>只有一个维度受限时：O(n log n)</li>
+ * <li>两个维度都受限时：最坏O(n²)，剩余重量和剩余体积的最大值可能来自不同的箱子，查找会回溯甚至遍历所有已开启的箱子</li>
+ * </ul>
+ * <p>单个物品就超过上限的，独占一个箱子.</p>
+ *
+ * @param <T> 物品类型
+ */
+public class BinPacker<T> {
+    private static final double EPSILON = 1e-9;
+
+    public enum Strategy {
+        FIRST_FIT_DECREASING,
+        BEST_FIT_DECREASING
+    }
+
+    private final double maxWeight;
+    private final double maxVolume;
+    private final ToDoubleFunction<T> weigher;
+    private final ToDoubleFunction<T> volumer;
+    private final Strategy strategy;
+
+    /**
+     * 只限制重量，O(n log n).
+     */
+    public BinPacker(double maxWeight, @NonNull ToDoubleFunction<T> weigher, @NonNull Strategy strategy) {
+        this(maxWeight, Double.POSITIVE_INFINITY, weigher, item -> 0, strategy);
+    }
+
+    /**
+     * 同时限制重量和体积，最坏O(n²).
+     *
+     * @param maxWeight 每个箱子的重量上限
+     * @param maxVolume 每个箱子的体积上限
+     * @param weigher   物品的重量
+     * @param volumer   物品的体积
+     * @param strategy  装箱策略
+     */
+    public BinPacker(double maxWeight, double maxVolume, @NonNull ToDoubleFunction<T> weigher, @NonNull ToDoubleFunction<T> volumer, @NonNull Strategy strategy) {
+        if (!(maxWeight > 0) || !(maxVolume > 0)) {
+            throw new IllegalArgumentException("maxWeight and maxVolume must be positive");
+        }
+        this.maxWeight = maxWeight;
+        this.maxVolume = maxVolume;
+        this.weigher = weigher;
+        this.volumer = volumer;
+        this.strategy = strategy;
+    }
+
+    /**
+     * 装箱.
+     *
+     * @return 箱子按创建顺序排列：超限的物品独占的箱子在前
+     * @throws IllegalArgumentException if any item has a negative or NaN size
+     */
+    public List<Bin<T>> pack(@NonNull List<T> items) {
+        final int n = items.size();
+        final double[] weights = new double[n];
+        final double[] volumes = new double[n];
+        final Integer[] order = new Integer[n];
+        final double[] dominant = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = weigher.applyAsDouble(items.get(i));
+            volumes[i] = volumer.applyAsDouble(items.get(i));
+            if (!(weights[i] >= 0) || !(volumes[i] >= 0)) {
+                throw new IllegalArgumentException("item size must be non-negative: " + items.get(i));
+            }
+            dominant[i] = Math.max(weights[i] / maxWeight, volumes[i] / maxVolume);
+            order[i] = i;
+        }
+        // 降序，相同尺寸保持原始顺序
+        Arrays.sort(order, (a, b) -> Double.compare(dominant[b], dominant[a]));
+
+        final List<Bin<T>> bins = new ArrayList<>();
+        final BinIndex index = strategy == Strategy.FIRST_FIT_DECREASING ? new SegmentTreeIndex(n) : new SortedIndex();
+        final List<Bin<T>> indexedBins = new ArrayList<>();
+        for (int i : order) {
+            final T item = items.get(i);
+            if (weights[i] > maxWeight + EPSILON || volumes[i] > maxVolume + EPSILON) {
+                // 超限的物品独占一个箱子，不参与后续装箱
+                Bin<T> bin = new Bin<>();
+                bin.add(item, weights[i], volumes[i]);
+                bins.add(bin);
+                continue;
+            }
+
+            int binIdx = index.find(weights[i], volumes[i]);
+            if (binIdx < 0) {
+                binIdx = indexedBins.size();
+                indexedBins.add(new Bin<>());
+                index.open(binIdx);
+            }
+            index.consume(binIdx, weights[i], volumes[i]);
+            indexedBins.get(binIdx).add(item, weights[i], volumes[i]);
+        }
+        bins.addAll(indexedBins);
+        return bins;
+    }
+
+    /**
+     * 按key分组后各组独立装箱，组之间并行.
+     *
+     * @param items      物品
+     * @param classifier 分组的key，例如：目的地
+     * @param <K>        分组的key类型
+     * @return 各组的箱子，组按key首次出现的顺序排列
+     */
+    @SuppressWarnings("unchecked")
+    public <K> Map<K, List<Bin<T>>> packGrouped(@NonNull Collection<T> items, @NonNull Function<T, K> classifier) {
+        Map<K, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(classifier.apply(item), k -> new ArrayList<>()).add(item);
+        }
+
+        List<T>[] groupItems = groups.values().toArray(new List[0]);
+        List<Bin<T>>[] packed = new List[groupItems.length];
+        // 粒度为1：每组一个并行任务
+        Booster.boost(groupItems, packed, this::pack, ForkJoinPool.commonPool(), 1);
+
+        Map<K, List<Bin<T>>> result = new LinkedHashMap<>();
+        int i = 0;
+        for (K key : groups.keySet()) {
+            result.put(key, packed[i++]);
+        }
+        return result;
+    }
+
+    /**
+     * 箱子.
+     *
+     * @param <T> 物品类型
+     */
+    @Getter
+    public static class Bin<T> {
+        private final List<T> items = new ArrayList<>();
+        private double weight;
+        private double volume;
+
+        void add(T item, double itemWeight, double itemVolume) {
+            items.add(item);
+            weight += itemWeight;
+            volume += itemVolume;
+        }
+    }
+
+    /**
+     * 已开启的箱子的剩余容量索引.
+     */
+    private interface BinIndex {
+        /**
+         * @return 放得下的箱子，-1表示没有
+         */
+        int find(double weight, double volume);
+
+        void open(int binIdx);
+
+        void consume(int binIdx, double weight, double volume);
+    }
+
+    /**
+     * 线段树：每个节点记录子树里最大的剩余重量和剩余体积.
+     *
+     * <p>箱子按开启顺序占据叶子，未开启的叶子剩余容量为负，不会被选中.</p>
+     */
+    private class SegmentTreeIndex implements BinIndex {
+        private final int size;
+        private final double[] maxRemainingWeight;
+        private final double[] maxRemainingVolume;
+
+        SegmentTreeIndex(int capacity) {
+            int s = 1;
+            while (s < Math.max(1, capacity)) {
+                s <<= 1;
+            }
+            this.size = s;
+            this.maxRemainingWeight = new double[2 * s];
+            this.maxRemainingVolume = new double[2 * s];
+            Arrays.fill(maxRemainingWeight, -1);
+            Arrays.fill(maxRemainingVolume, -1);
+        }
+
+        @Override
+        public int find(double weight, double volume) {
+            return find(1, weight - EPSILON, volume - EPSILON);
+        }
+
+        private int find(int node, double weight, double volume) {
+            if (maxRemainingWeight[node] < weight || maxRemainingVolume[node] < volume) {
+                return -1;
+            }
+            if (node >= size) {
+                return node - size;
+            }
+
+            final int left = find(2 * node, weight, volume);
+            return left >= 0 ? left : find(2 * node + 1, weight, volume);
+        }
+
+        @Override
+        public void open(int binIdx) {
+            set(binIdx, maxWeight, maxVolume);
+        }
+
+        @Override
+        public void consume(int binIdx, double weight, double volume) {
+            final int leaf = binIdx + size;
+            set(binIdx, maxRemainingWeight[leaf] - weight, maxRemainingVolume[leaf] - volume);
+        }
+
+        private void set(int binIdx, double remainingWeight, double remainingVolume) {
+            int node = binIdx + size;
+            maxRemainingWeight[node] = remainingWeight;
+            maxRemainingVolume[node] = remainingVolume;
+            for (node >>= 1; node >= 1; node >>= 1) {
+                maxRemainingWeight[node] = Math.max(maxRemainingWeight[2 * node], maxRemainingWeight[2 * node + 1]);
+                maxRemainingVolume[node] = Math.max(maxRemainingVolume[2 * node], maxRemainingVolume[2 * node + 1]);
+            }
+        }
+    }
+
+    /**
+     * 按剩余重量升序排列的箱子：第一个放得下的就是剩余重量最少的.
+     */
+    private class SortedIndex implements BinIndex {
+        private final List<double[]> remaining = new ArrayList<>();
+        // 剩余重量升序，相同时按开启顺序
+        private final TreeSet<Integer> bins = new TreeSet<>((a, b) -> {
+            final int c = Double.compare(remaining.get(a)[0], remaining.get(b)[0]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+
+        @Override
+        public int find(double weight, double volume) {
+            // 探针：剩余重量恰好放得下
+            remaining.add(new double[]{weight - EPSILON, 0});
+            final int probe = remaining.size() - 1;
+            try {
+                for (int binIdx : bins.tailSet(probe, true)) {
+                    if (binIdx != probe && remaining.get(binIdx)[1] >= volume - EPSILON) {
+                        return binIdx;
+                    }
+                }
+                return -1;
+            } finally {
+                remaining.remove(probe);
+            }
+        }
+
+        @Override
+        public void open(int binIdx) {
+            remaining.add(new double[]{maxWeight, maxVolume});
+            bins.add(binIdx);
+        }
+
+        @Override
+        public void consume(int binIdx, double weight, double volume) {
+            bins.remove(binIdx);
+            remaining.get(binIdx)[0] -= weight;
+            remaining.get(binIdx)[1] -= volume;
+            bins.add(binIdx);
+        }
+    }
+}
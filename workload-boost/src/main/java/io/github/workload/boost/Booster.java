@@ -4,19 +4,29 @@ import com.aparapi.Kernel;
 import com.aparapi.Range;
 import com.aparapi.device.Device;
 import com.aparapi.internal.kernel.KernelManager;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
 /**
  * 利用 GPU 进行计算加速.
  *
  * <p>使用 Aparapi 库来将 Java 代码转换为 OpenCL，从而在 GPU 上执行。</p>
+ * <p>没有 GPU 时使用 fork-join 在多核 CPU 上并行：数组被递归二分，直到不超过粒度(grain size)的分段在一个线程里顺序执行。</p>
  */
 @Slf4j
 public class Booster {
     private static final boolean USE_GPU = isGPUAvailable();
 
+    /**
+     * 最小的粒度：更小的分段，任务调度的开销超过了并行的收益.
+     */
+    static final int MIN_GRAIN_SIZE = 1024;
+
     /**
      * 对输入数组进行处理，将结果存储在输出数组中(只支持单卡)。
      * 如果 GPU 不可用，将自动降级到 CPU 计算。
@@ -36,6 +46,44 @@ public class Booster {
         }
     }
 
+    /**
+     * 只在 CPU 上并行处理，使用调用者提供的线程池和粒度.
+     *
+     * @param pool      执行并行任务的线程池
+     * @param grainSize 每个分段最多处理多少元素，不超过它的数组在调用者线程里顺序执行
+     */
+    public static <T, R> R[] boost(@NonNull T[] input, @NonNull R[] output, @NonNull Function<T, R> operation, @NonNull ForkJoinPool pool, int grainSize) {
+        validate(input.length, output.length, grainSize);
+        return cpuParallelProcess(input, output, operation, pool, grainSize);
+    }
+
+    /**
+     * 原始类型数组的处理：没有装箱.
+     *
+     * <p>{@link DoubleUnaryOperator}无法被 Aparapi 转换为 OpenCL，因此总是在 CPU 上并行.</p>
+     *
+     * @param input     输入数组
+     * @param output    输出数组，可以与输入数组是同一个
+     * @param operation 要应用于每个元素的操作
+     * @return 处理后的输出数组
+     */
+    public static double[] boost(@NonNull double[] input, @NonNull double[] output, @NonNull DoubleUnaryOperator operation) {
+        return boost(input, output, operation, ForkJoinPool.commonPool(), defaultGrainSize(input.length, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * {@link #boost(double[], double[], DoubleUnaryOperator)}，使用调用者提供的线程池和粒度.
+     */
+    public static double[] boost(@NonNull double[] input, @NonNull double[] output, @NonNull DoubleUnaryOperator operation, @NonNull ForkJoinPool pool, int grainSize) {
+        validate(input.length, output.length, grainSize);
+        if (input.length <= grainSize) {
+            applyRange(input, output, operation, 0, input.length);
+        } else {
+            pool.invoke(new DoubleSlice(input, output, operation, 0, input.length, grainSize));
+        }
+        return output;
+    }
+
     private static <T, R> R[] gpuParallelProcess(T[] input, R[] output, Function<T, R> operation) {
         Kernel kernel = new Kernel() {
             @Override
@@ -68,12 +116,107 @@ public class Booster {
     }
 
     private static <T, R> R[] cpuParallelProcess(T[] input, R[] output, Function<T, R> operation) {
-        for (int i = 0; i < input.length; i++) {
-            output[i] = operation.apply(input[i]);
+        validate(input.length, output.length, MIN_GRAIN_SIZE);
+        return cpuParallelProcess(input, output, operation, ForkJoinPool.commonPool(), defaultGrainSize(input.length, ForkJoinPool.commonPool()));
+    }
+
+    private static <T, R> R[] cpuParallelProcess(T[] input, R[] output, Function<T, R> operation, ForkJoinPool pool, int grainSize) {
+        if (input.length <= grainSize) {
+            applyRange(input, output, operation, 0, input.length);
+        } else {
+            pool.invoke(new ObjectSlice<>(input, output, operation, 0, input.length, grainSize));
         }
         return output;
     }
 
+    /**
+     * 默认粒度：每个工作线程大约分到4个分段，以平衡负载不均.
+     */
+    static int defaultGrainSize(int length, ForkJoinPool pool) {
+        return Math.max(MIN_GRAIN_SIZE, length / (pool.getParallelism() * 4));
+    }
+
+    private static void validate(int inputLength, int outputLength, int grainSize) {
+        if (outputLength < inputLength) {
+            throw new IllegalArgumentException("output is shorter than input");
+        }
+        if (grainSize <= 0) {
+            throw new IllegalArgumentException("grainSize must be positive");
+        }
+    }
+
+    private static <T, R> void applyRange(T[] input, R[] output, Function<T, R> operation, int from, int to) {
+        for (int i = from; i < to; i++) {
+            output[i] = operation.apply(input[i]);
+        }
+    }
+
+    private static void applyRange(double[] input, double[] output, DoubleUnaryOperator operation, int from, int to) {
+        for (int i = from; i < to; i++) {
+            output[i] = operation.applyAsDouble(input[i]);
+        }
+    }
+
+    private static class ObjectSlice<T, R> extends RecursiveAction {
+        private final T[] input;
+        private final R[] output;
+        private final Function<T, R> operation;
+        private final int from;
+        private final int to;
+        private final int grainSize;
+
+        ObjectSlice(T[] input, R[] output, Function<T, R> operation, int from, int to, int grainSize) {
+            this.input = input;
+            this.output = output;
+            this.operation = operation;
+            this.from = from;
+            this.to = to;
+            this.grainSize = grainSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grainSize) {
+                applyRange(input, output, operation, from, to);
+                return;
+            }
+
+            final int mid = (from + to) >>> 1;
+            invokeAll(new ObjectSlice<>(input, output, operation, from, mid, grainSize),
+                    new ObjectSlice<>(input, output, operation, mid, to, grainSize));
+        }
+    }
+
+    private static class DoubleSlice extends RecursiveAction {
+        private final double[] input;
+        private final double[] output;
+        private final DoubleUnaryOperator operation;
+        private final int from;
+        private final int to;
+        private final int grainSize;
+
+        DoubleSlice(double[] input, double[] output, DoubleUnaryOperator operation, int from, int to, int grainSize) {
+            this.input = input;
+            this.output = output;
+            this.operation = operation;
+            this.from = from;
+            this.to = to;
+            this.grainSize = grainSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grainSize) {
+                applyRange(input, output, operation, from, to);
+                return;
+            }
+
+            final int mid = (from + to) >>> 1;
+            invokeAll(new DoubleSlice(input, output, operation, from, mid, grainSize),
+                    new DoubleSlice(input, output, operation, mid, to, grainSize));
+        }
+    }
+
     private static boolean isGPUAvailable() {
         try {
             Device device = KernelManager.instance().bestDevice();
@@ -1,13 +1,16 @@
 package io.github.workload.boost;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * 集合单分配.
  */
 class ConsolidatedShipmentCalculator {
-    private static final float MAX_WEIGHT = 500; // 最大重量限制
+    static final float MAX_WEIGHT = 500; // 最大重量限制
+
+    private static final BinPacker<Order> packer = new BinPacker<>(MAX_WEIGHT, order -> order.weight, BinPacker.Strategy.FIRST_FIT_DECREASING);
 
     /**
      * 发货单.
@@ -46,47 +49,24 @@ class ConsolidatedShipmentCalculator {
 
     /**
      * 把原始发货单进行合并.
+     *
+     * <ul>委托给只限制重量的{@link BinPacker}，O(n log n)：
+     * <li>按目的地哈希分区，目的地按首次出现的顺序排列</li>
+     * <li>各目的地之间相互独立，并行地装箱：同一目的地的发货单按重量降序，装入第一个放得下的集合单(first-fit decreasing)</li>
+     * </ul>
+     * <p>每个发货单恰好出现在一个集合单里，集合单只有一个目的地，总重量不超过{@value #MAX_WEIGHT}(单个发货单就超重的除外).</p>
      */
     public static List<ConsolidatedShipment> consolidateShipments(Order[] orders) {
-        Integer[] consolidatedIndices = new Integer[orders.length];
-
-        Booster.boost(orders, consolidatedIndices, order -> {
-            int consolidatedIndex = order.id;
-            float currentWeight = order.weight;
-
-            for (int j = 0; j < orders.length; j++) {
-                if (order.id != j && orders[j].destination.equals(order.destination)) {
-                    float combinedWeight = currentWeight + orders[j].weight;
-                    if (combinedWeight <= MAX_WEIGHT) {
-                        currentWeight = combinedWeight;
-                        consolidatedIndex = Math.min(consolidatedIndex, j);
-                    }
-                }
-            }
-
-            return consolidatedIndex;
-        });
-
-        return createConsolidatedShipments(orders, consolidatedIndices);
-    }
-
-    private static List<ConsolidatedShipment> createConsolidatedShipments(Order[] orders, Integer[] consolidatedIndices) {
         List<ConsolidatedShipment> shipments = new ArrayList<>();
-        boolean[] processed = new boolean[orders.length];
-
-        for (int i = 0; i < orders.length; i++) {
-            if (!processed[i]) {
-                ConsolidatedShipment shipment = new ConsolidatedShipment(orders[i].destination);
-                for (int j = 0; j < orders.length; j++) {
-                    if (consolidatedIndices[j].equals(consolidatedIndices[i]) && !processed[j]) {
-                        shipment.addOrder(orders[j]);
-                        processed[j] = true;
-                    }
-                }
+        packer.packGrouped(Arrays.asList(orders), order -> order.destination).forEach((destination, bins) -> {
+            for (BinPacker.Bin<Order> bin : bins) {
+                ConsolidatedShipment shipment = new ConsolidatedShipment(destination);
+                shipment.orders.addAll(bin.getItems());
+                // 用装箱时的累计值，避免float逐个累加的舍入误差
+                shipment.totalWeight = (float) bin.getWeight();
                 shipments.add(shipment);
             }
-        }
-
+        });
         return shipments;
     }
 
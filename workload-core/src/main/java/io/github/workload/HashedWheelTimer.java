@@ -0,0 +1,290 @@
+package io.github.workload;
+
+import io.github.workload.annotations.ThreadSafe;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 哈希时间轮定时器：大量短期、通常会被取消的超时任务，例如对冲请求的触发、截止时间.
+ *
+ * <p>相比{@link java.util.concurrent.ScheduledExecutorService}：插入和取消都是O(1)，不需要锁，不需要在堆里维护{@code DelayedWorkQueue}.</p>
+ * <ul>实现(borrowed from Netty HashedWheelTimer)：
+ * <li>新任务先进入无锁队列，由工作线程在每个tick转移到对应的槽位</li>
+ * <li>取消只是CAS状态并进入取消队列，工作线程在下一个tick从槽位的双向链表里摘除，及时释放内存</li>
+ * <li>任务在工作线程上执行，因此必须很轻：例如只是把真正的工作提交到线程池</li>
+ * <li>精度受tick约束：任务最多延迟一个tick执行</li>
+ * </ul>
+ */
+@Slf4j
+@ThreadSafe
+public class HashedWheelTimer {
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final String name;
+    private final long tickNs;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startNs;
+
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+
+    private volatile boolean stopped;
+
+    // 只被工作线程访问
+    private long tick;
+
+    /**
+     * Constructor.
+     *
+     * @param name          名称，用于工作线程命名
+     * @param tickMs        时间轮每一格的时长
+     * @param ticksPerWheel 时间轮有多少格，会向上取整为2的幂
+     */
+    public HashedWheelTimer(@NonNull String name, long tickMs, int ticksPerWheel) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("ticksPerWheel must be in (0, 2^30]");
+        }
+
+        this.name = name;
+        this.tickNs = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        final int size = ticksPerWheel == 1 ? 1 : Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startNs = System.nanoTime();
+        this.worker = new NamedThreadFactory(name).newThread(this::work);
+        worker.start();
+        log.info("[{}] started, tick:{}ms, wheel:{}", name, tickMs, size);
+    }
+
+    /**
+     * 在指定延迟后执行任务.
+     *
+     * @param task  要执行的任务，在工作线程上执行
+     * @param delay 延迟
+     * @param unit  延迟的时间单位
+     * @return handle to cancel the task
+     * @throws IllegalStateException if the timer has been stopped
+     */
+    public Timeout newTimeout(@NonNull Runnable task, long delay, @NonNull TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException(name + " stopped");
+        }
+
+        final long deadlineNs = System.nanoTime() - startNs + Math.max(0, unit.toNanos(delay));
+        Timeout timeout = new Timeout(task, deadlineNs);
+        pending.incrementAndGet();
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 尚未执行也没有被取消的任务数量.
+     */
+    public long pendingTimeouts() {
+        return pending.get();
+    }
+
+    /**
+     * 停止工作线程，尚未执行的任务被丢弃.
+     */
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void work() {
+        while (!stopped) {
+            if (!waitForNextTick()) {
+                break;
+            }
+
+            removeCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+        log.info("[{}] stopped, {} pending timeouts dropped", name, pending.get());
+    }
+
+    // 被停止时返回false
+    private boolean waitForNextTick() {
+        final long deadlineNs = tickNs * (tick + 1);
+        while (true) {
+            final long nowNs = System.nanoTime() - startNs;
+            final long sleepNs = deadlineNs - nowNs;
+            if (sleepNs <= 0) {
+                return true;
+            }
+
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNs);
+            } catch (InterruptedException e) {
+                if (stopped) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                continue;
+            }
+
+            final long expectedTick = timeout.deadlineNs / tickNs;
+            timeout.remainingRounds = (expectedTick - tick) / wheel.length;
+            // 已经过期的任务放到当前槽位，本tick就执行
+            final long ticks = Math.max(expectedTick, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * 超时任务的句柄.
+     */
+    public final class Timeout {
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadlineNs;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+
+        // 以下只被工作线程访问
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineNs) {
+            this.task = task;
+            this.deadlineNs = deadlineNs;
+        }
+
+        /**
+         * 取消尚未执行的任务.
+         *
+         * @return false if the task has been executed or cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+
+            pending.decrementAndGet();
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+
+            pending.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("[{}] timeout task failed", name, e);
+            }
+        }
+    }
+
+    /**
+     * 时间轮的槽位：超时任务的双向链表，只被工作线程访问.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    // 转移时已按deadline计算槽位，轮次到了即已过期
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                // 已经被摘除
+                return;
+            }
+
+            final Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -21,6 +21,34 @@ public interface HyperParameter {
      */
     String WINDOW_REQUEST_CYCLE = "workload.window.DEFAULT_REQUEST_CYCLE";
 
+    /**
+     * 滚动窗口每秒基于请求数量切换的上限，高QPS下据此放大请求数量周期.
+     *
+     * <p>默认值：10</p>
+     */
+    String WINDOW_ROLLOVERS_PER_SEC = "workload.window.ROLLOVERS_PER_SEC";
+
+    /**
+     * 自适应对冲请求在延迟的哪个分位点发起对冲.
+     *
+     * <p>默认值：0.95，表示TP95</p>
+     */
+    String HEDGE_QUANTILE = "workload.hedge.QUANTILE";
+
+    /**
+     * 对冲请求的预算：对冲请求最多占请求量的比例，避免对冲放大过载.
+     *
+     * <p>默认值：0.05，表示最多额外增加5%的后端负荷</p>
+     */
+    String HEDGE_BUDGET_RATIO = "workload.hedge.BUDGET_RATIO";
+
+    /**
+     * 对冲请求默认线程池的最大线程数，超过时拒绝：原始请求失败，对冲请求不再发起.
+     *
+     * <p>默认值：256</p>
+     */
+    String HEDGE_MAX_THREADS = "workload.hedge.MAX_THREADS";
+
     static double getDouble(String key, double defaultValue) {
         String value = System.getProperty(key);
         if (value == null) {
@@ -42,4 +70,13 @@ public interface HyperParameter {
     static int getInt(String key, int defaultValue) {
         return (int) getLong(key, defaultValue);
     }
+
+    static boolean getBoolean(String key, boolean defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        return Boolean.parseBoolean(value);
+    }
 }
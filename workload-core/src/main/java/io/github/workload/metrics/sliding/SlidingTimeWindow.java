@@ -138,11 +138,11 @@ public abstract class SlidingTimeWindow<StatisticData> {
         return values(System.currentTimeMillis());
     }
 
-    List<StatisticData> values(long timeMillis) {
+    public List<StatisticData> values(long timeMillis) {
         List<StatisticData> result = new ArrayList<>(bucketCount);
         for (int i = 0; i < bucketCount; i++) {
             Bucket<StatisticData> bucket = buckets.get(i);
-            if (bucket == null || !bucket.isTimeInBucket(timeMillis)) {
+            if (bucket == null || isBucketDeprecated(bucket, timeMillis)) {
                 continue;
             }
 
@@ -151,6 +151,14 @@ public abstract class SlidingTimeWindow<StatisticData> {
         return result;
     }
 
+    /**
+     * 桶是否已滑出窗口：不在(timeMillis - 窗口时长, timeMillis]范围内.
+     */
+    boolean isBucketDeprecated(Bucket<StatisticData> bucket, long timeMillis) {
+        final long startMillis = bucket.startMillis();
+        return startMillis > timeMillis || timeMillis - startMillis >= (long) bucketCount * bucketDurationMs;
+    }
+
     int calculateBucketIdx(long timeMillis) {
         long timeId = timeMillis / bucketDurationMs;
         return (int) (timeId % bucketCount);
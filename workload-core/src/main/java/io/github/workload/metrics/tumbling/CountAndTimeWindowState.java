@@ -10,6 +10,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.LongAdder;
 
 import static io.github.workload.metrics.tumbling.WindowConfig.NS_PER_MS;
+import static io.github.workload.metrics.tumbling.WindowConfig.NS_PER_SEC;
 
 @Slf4j
 public class CountAndTimeWindowState extends WindowState {
@@ -88,6 +89,20 @@ public class CountAndTimeWindowState extends WindowState {
         return avgQueuedNs / NS_PER_MS;
     }
 
+    /**
+     * 窗口期内的QPS.
+     *
+     * @param nowNs 当前系统时间，see {@link System#nanoTime()}
+     */
+    public double qps(long nowNs) {
+        final long elapsedNs = nowNs - startNs;
+        if (elapsedNs <= 0) {
+            return 0;
+        }
+
+        return (double) requested() * NS_PER_SEC / elapsedNs;
+    }
+
     @Override
     protected void doSample(WorkloadPriority priority, boolean admitted) {
         if (admitted) {
@@ -8,11 +8,20 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 基于(时间周期，请求数量周期)的滚动窗口，用于对工作负荷采样.
  *
+ * <p>默认由触发窗口切换的请求线程同步执行{@link WindowRolloverStrategy#onRollover}；指定了{@code rolloverExecutor}时，请求线程只负责切换窗口，
+ * 被换出的窗口交给控制线程异步处理，从而不增加请求的尾延迟.</p>
+ * <ul>异步模式下的时效性保证:
+ * <li>控制线程来不及处理时，较新的被换出窗口覆盖较旧的，只处理最新的窗口</li>
+ * <li>控制线程欠下的处理超过一个时间周期(从最早的未处理窗口被提交时算起，控制线程卡顿)，或提交被拒绝，则退化为请求线程同步处理</li>
+ * </ul>
+ *
  * @param <S> 具体的窗口状态
  */
 @Slf4j
@@ -29,11 +38,31 @@ public class TumblingWindow<S extends WindowState> {
      */
     private final AtomicReference<S> current;
 
+    /**
+     * 异步处理被换出窗口的执行器，null表示同步处理.
+     */
+    private final Executor rolloverExecutor;
+
+    /**
+     * 已被换出、等待控制线程处理的窗口.
+     */
+    private final AtomicReference<Rollover<S>> pending = new AtomicReference<>();
+
     public TumblingWindow(@NonNull WindowConfig<S> config, @NonNull String name, long startNs) {
+        this(config, name, startNs, null);
+    }
+
+    /**
+     * 创建滚动窗口.
+     *
+     * @param rolloverExecutor 异步执行{@link WindowRolloverStrategy#onRollover}的控制线程，null则由请求线程同步执行
+     */
+    public TumblingWindow(@NonNull WindowConfig<S> config, @NonNull String name, long startNs, Executor rolloverExecutor) {
         this.name = name;
         this.config = config;
         this.current = new AtomicReference<>(config.createWindowState(startNs));
-        log.info("[{}] created with {}", name, config);
+        this.rolloverExecutor = rolloverExecutor;
+        log.info("[{}] created with {}, async rollover:{}", name, config, rolloverExecutor != null);
     }
 
     /**
@@ -72,6 +101,15 @@ public class TumblingWindow<S extends WindowState> {
         config.zoomTimeCycle(factor);
     }
 
+    /**
+     * 根据观测到的QPS调整请求数量周期，避免高QPS下窗口过于频繁地切换.
+     *
+     * @param qps 上个窗口观测到的QPS
+     */
+    public void adaptRequestCycle(double qps) {
+        config.adaptRequestCycle(qps);
+    }
+
     private void tryRollover(long nowNs, S currentWindow) {
         if (!currentWindow.tryAcquireRolloverLock()) {
             // offers an early exit to avoid unnecessary preparation for the swap
@@ -81,8 +119,75 @@ public class TumblingWindow<S extends WindowState> {
         S nextWindow = config.createWindowState(nowNs);
         currentWindow.logRollover(name, nowNs, nextWindow, config); // 打日志
         current.set(nextWindow); // 没必要CAS；此后，采样数据都进入新窗口，currentWindow 内部状态不会再变化
-        config.getRolloverStrategy().onRollover(nowNs, currentWindow, this);
-        currentWindow.cleanup();
+        if (rolloverExecutor == null) {
+            onRollover(nowNs, currentWindow);
+        } else {
+            handoff(nowNs, currentWindow);
+        }
+    }
+
+    private void onRollover(long nowNs, S retiredWindow) {
+        config.getRolloverStrategy().onRollover(nowNs, retiredWindow, this);
+        retiredWindow.cleanup();
+    }
+
+    // 请求线程只把被换出的窗口交给控制线程
+    private void handoff(long nowNs, S retiredWindow) {
+        Rollover<S> superseded;
+        Rollover<S> rollover;
+        do {
+            superseded = pending.get();
+            // 覆盖时继承最早的未处理窗口的提交时间：连续的覆盖不会重置控制线程欠下的时长
+            rollover = new Rollover<>(nowNs, retiredWindow, superseded == null ? nowNs : superseded.owedSinceNs);
+        } while (!pending.compareAndSet(superseded, rollover));
+
+        if (superseded == null) {
+            // 没有待处理的窗口，说明控制线程已取走上一个：需要再次提交
+            try {
+                rolloverExecutor.execute(this::drain);
+            } catch (RejectedExecutionException why) {
+                log.warn("[{}] async rollover rejected, fallback to request thread", name);
+                drain();
+            }
+            return;
+        }
+
+        // 控制线程还没来得及处理上一个窗口，它已被最新窗口覆盖
+        superseded.window.cleanup();
+        if (nowNs - rollover.owedSinceNs > config.getTimeCycleNs().get()) {
+            log.warn("[{}] async rollover lagging over {}ms, fallback to request thread", name, config.getTimeCycleMs());
+            drain();
+        }
+    }
+
+    private void drain() {
+        final Rollover<S> rollover = pending.getAndSet(null);
+        if (rollover == null) {
+            // 已被其他线程处理
+            return;
+        }
+
+        try {
+            onRollover(rollover.nowNs, rollover.window);
+        } catch (Exception why) {
+            log.error("[{}] onRollover failed", name, why);
+        }
+    }
+
+    private static class Rollover<S extends WindowState> {
+        private final long nowNs;
+        private final S window;
+
+        /**
+         * 最早的未处理窗口被提交的时间.
+         */
+        private final long owedSinceNs;
+
+        Rollover(long nowNs, S window, long owedSinceNs) {
+            this.nowNs = nowNs;
+            this.window = window;
+            this.owedSinceNs = owedSinceNs;
+        }
     }
 
     @VisibleForTesting
@@ -9,6 +9,7 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -22,11 +23,14 @@ import java.util.concurrent.atomic.AtomicLong;
 @Slf4j
 public class WindowConfig<S extends WindowState> {
     public static final long NS_PER_MS = TimeUnit.MILLISECONDS.toNanos(1);
+    public static final long NS_PER_SEC = TimeUnit.SECONDS.toNanos(1);
     public static final long DEFAULT_TIME_CYCLE_NS = TimeUnit.MILLISECONDS.toNanos(HyperParameter.getLong(HyperParameter.WINDOW_TIME_CYCLE_MS, 1000)); // 1s
     public static final int DEFAULT_REQUEST_CYCLE = HyperParameter.getInt(HyperParameter.WINDOW_REQUEST_CYCLE, 1 << 10);
+    public static final int ROLLOVERS_PER_SEC = HyperParameter.getInt(HyperParameter.WINDOW_ROLLOVERS_PER_SEC, 10);
 
     static final long MIN_TIME_CYCLE_NS = DEFAULT_TIME_CYCLE_NS / 5;
     static final long MAX_TIME_CYCLE_NS = DEFAULT_TIME_CYCLE_NS * 2;
+    static final int MAX_REQUEST_CYCLE_ZOOM = 32;
 
     /**
      * 时间周期.
@@ -37,7 +41,12 @@ public class WindowConfig<S extends WindowState> {
     /**
      * 请求数量周期.
      */
-    private final int requestCycle;
+    private final AtomicInteger requestCycle;
+
+    /**
+     * 请求数量周期的下限，即创建时指定的值.
+     */
+    private final int minRequestCycle;
 
     private final WindowRolloverStrategy<S> rolloverStrategy;
 
@@ -54,12 +63,26 @@ public class WindowConfig<S extends WindowState> {
      * <p>编译器通常通过擦除机制允许未带泛型信息的类型存在，为了提高泛型的类型安全性，采用静态工厂方法解决</p>
      */
     public static <T extends WindowState> WindowConfig<T> create(long timeCycleNs, int requestCycle, @NonNull WindowRolloverStrategy<T> rolloverStrategy) {
-        return new WindowConfig<>(new AtomicLong(timeCycleNs), requestCycle, rolloverStrategy);
+        return new WindowConfig<>(new AtomicLong(timeCycleNs), new AtomicInteger(requestCycle), requestCycle, rolloverStrategy);
+    }
+
+    /**
+     * 当前的请求数量周期.
+     */
+    public int getRequestCycle() {
+        return requestCycle.get();
+    }
+
+    /**
+     * 当前的时间周期 in ms.
+     */
+    public long getTimeCycleMs() {
+        return timeCycleNs.get() / NS_PER_MS;
     }
 
     @Override
     public String toString() {
-        return "WindowConfig(time=" + timeCycleNs.get() / NS_PER_MS / 1000 + "s,count=" + requestCycle + ")";
+        return "WindowConfig(time=" + timeCycleNs.get() / NS_PER_MS / 1000 + "s,count=" + requestCycle.get() + ")";
     }
 
     /**
@@ -83,9 +106,31 @@ public class WindowConfig<S extends WindowState> {
         timeCycleNs.updateAndGet(current -> {
             long newValue = (long) (current * effectiveFactor);
             newValue = Math.max(MIN_TIME_CYCLE_NS, Math.min(newValue, MAX_TIME_CYCLE_NS));
-            log.info("timeCycleNs zoom factor {}: {} -> {}", factor, current, newValue);
+            if (newValue != current) {
+                log.debug("timeCycleNs zoom factor {}: {} -> {}", factor, current, newValue);
+            }
             return newValue;
         });
     }
 
+    /**
+     * 根据观测到的QPS调整请求数量周期，使得每秒基于数量的窗口切换不超过{@link #ROLLOVERS_PER_SEC}次.
+     *
+     * <p>取值范围：[创建时的请求数量周期, 其{@link #MAX_REQUEST_CYCLE_ZOOM}倍]，QPS下降时也会随之回落.</p>
+     *
+     * @param qps 上个窗口观测到的QPS
+     */
+    void adaptRequestCycle(double qps) {
+        if (!(qps > 0)) {
+            return;
+        }
+
+        final long target = (long) (qps / ROLLOVERS_PER_SEC);
+        final int newValue = (int) Math.max(minRequestCycle, Math.min(target, (long) minRequestCycle * MAX_REQUEST_CYCLE_ZOOM));
+        final int oldValue = requestCycle.getAndSet(newValue);
+        if (oldValue != newValue) {
+            log.debug("requestCycle adapted to qps {}: {} -> {}", (long) qps, oldValue, newValue);
+        }
+    }
+
 }